@@ -1,3 +1,15 @@
+import groovy.json.JsonSlurper
+
+buildscript {
+    repositories {
+        mavenCentral()
+    }
+    dependencies {
+        // JDBC driver used to build the prebuilt database at build time
+        classpath("org.xerial:sqlite-jdbc:3.46.1.3")
+    }
+}
+
 plugins {
     alias(libs.plugins.android.application)
     id("com.google.gms.google-services")
@@ -30,6 +42,98 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+
+    sourceSets {
+        getByName("main") {
+            assets.srcDir(layout.buildDirectory.dir("generated/prebuiltDatabase"))
+        }
+    }
+}
+
+// Prebuilt LoveApp.db: final schema, indexes and FTS tables plus the bundled timeline content,
+// copied into place on first launch instead of running DatabaseHelper.onCreate
+val buildPrebuiltDatabase by tasks.registering {
+    val schemaFile = file("src/main/database/schema.sql")
+    val helperFile = file("src/main/java/com/martin/love_application/DatabaseHelper.java")
+    val timelineFile = file("src/main/assets/timeline_events.json")
+    val outputDir = layout.buildDirectory.dir("generated/prebuiltDatabase")
+    inputs.files(schemaFile, helperFile, timelineFile)
+    outputs.dir(outputDir)
+
+    doLast {
+        val schema = schemaFile.readText()
+        val databaseVersion = Regex("""DATABASE_VERSION\s*=\s*(\d+)""").find(helperFile.readText())
+            ?.groupValues?.get(1)?.toInt()
+            ?: throw GradleException("DATABASE_VERSION not found in ${helperFile.name}")
+        val schemaVersion = Regex("""--\s*version:\s*(\d+)""").find(schema)?.groupValues?.get(1)?.toInt()
+        if (schemaVersion != databaseVersion) {
+            throw GradleException("${schemaFile.name} is for version $schemaVersion but DatabaseHelper is at " +
+                    "$databaseVersion - update the schema file together with the migration")
+        }
+
+        val dbFile = outputDir.get().dir("prebuilt").file("LoveApp.db").asFile
+        dbFile.parentFile.mkdirs()
+        dbFile.delete()
+        var eventCount = 0
+
+        org.sqlite.JDBC().connect("jdbc:sqlite:${dbFile.absolutePath}", java.util.Properties()).use { connection ->
+            connection.autoCommit = false
+            connection.createStatement().use { statement ->
+                schema.split(";\n").map { it.trim() }
+                    .filter { it.isNotEmpty() && !it.lines().all { line -> line.isBlank() || line.startsWith("--") } }
+                    .forEach { statement.execute(it) }
+            }
+
+            @Suppress("UNCHECKED_CAST")
+            val events = JsonSlurper().parse(timelineFile) as List<Map<String, Any?>>
+            connection.prepareStatement("INSERT OR IGNORE INTO timeline_events(event_date, event_title, " +
+                    "event_description, event_type, event_day) VALUES (?, ?, ?, ?, ?)").use { insertEvent ->
+                connection.prepareStatement("INSERT INTO timeline_photos(event_id, position, photo_path) " +
+                        "VALUES (?, ?, ?)").use { insertPhoto ->
+                    for (event in events) {
+                        val date = event["date"] as? String ?: continue
+                        val title = event["title"] as? String ?: continue
+                        insertEvent.setString(1, date)
+                        insertEvent.setString(2, title)
+                        insertEvent.setString(3, event["description"] as? String)
+                        insertEvent.setString(4, event["type"] as? String ?: "memory") // TimelineEvent.DEFAULT_TYPE
+                        val day = runCatching { java.time.LocalDate.parse(date.take(10)).toEpochDay() }.getOrNull()
+                        if (day != null) insertEvent.setLong(5, day) else insertEvent.setNull(5, java.sql.Types.INTEGER)
+                        if (insertEvent.executeUpdate() == 0) continue
+                        eventCount++
+
+                        val eventId = connection.createStatement().use {
+                            it.executeQuery("SELECT last_insert_rowid()").use { rs -> rs.next(); rs.getLong(1) }
+                        }
+                        val photos = when (val value = event["photos"]) {
+                            is String -> value.split(",")
+                            is List<*> -> value.map { it.toString() }
+                            else -> emptyList()
+                        }.map { it.trim() }.filter { it.isNotEmpty() }
+                        photos.forEachIndexed { position, path ->
+                            insertPhoto.setLong(1, eventId)
+                            insertPhoto.setInt(2, position)
+                            insertPhoto.setString(3, path)
+                            insertPhoto.executeUpdate()
+                        }
+                    }
+                }
+            }
+            connection.commit()
+
+            // Messages are dated relative to the install day, so they are not part of the prebuilt file
+            connection.autoCommit = true
+            connection.createStatement().use { statement ->
+                statement.execute("PRAGMA user_version = $databaseVersion")
+                statement.execute("VACUUM")
+            }
+        }
+        logger.lifecycle("Built prebuilt database v$databaseVersion with $eventCount timeline events")
+    }
+}
+
+tasks.named("preBuild") {
+    dependsOn(buildPrebuiltDatabase)
 }
 
 dependencies {
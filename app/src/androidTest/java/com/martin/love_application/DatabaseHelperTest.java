@@ -0,0 +1,151 @@
+package com.martin.love_application;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sync merges, keyset paging and full-text search against a real SQLite database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseHelperTest {
+
+    private static final String TEST_DATABASE = "database-helper-test.db";
+    private static final long BASE_DAY = EpochDays.parse("2025-01-01");
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dbHelper = new DatabaseHelper(context, TEST_DATABASE);
+        // Start without the seeded rows of the prebuilt database
+        dbHelper.mirrorMessages(Collections.emptyList());
+        dbHelper.mirrorTimelineEvents(Collections.emptyList());
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void upsertMessages_writesOnlyChangedDays() {
+        dbHelper.upsertMessages(Arrays.asList(message(0, "eins"), message(1, "zwei")));
+
+        UpsertResult result = dbHelper.upsertMessages(Arrays.asList(message(0, "eins"), message(1, "zwei!"), message(2, "drei")));
+
+        assertEquals(1, result.inserted);
+        assertEquals(1, result.updated);
+        assertEquals(1, result.unchanged);
+        assertEquals(0, result.deleted);
+    }
+
+    @Test
+    public void upsertMessages_keepsTheUnlockState() {
+        long today = EpochDays.today();
+        dbHelper.upsertMessages(Collections.singletonList(new Message("alt", "love", EpochDays.format(today))));
+        dbHelper.unlockTodaysMessage();
+
+        dbHelper.upsertMessages(Collections.singletonList(new Message("neu", "love", EpochDays.format(today))));
+
+        Message stored = dbHelper.getMessagesBetweenDays(today, today).get(0);
+        assertEquals("neu", stored.getText());
+        assertTrue(stored.isUnlocked());
+    }
+
+    @Test
+    public void mirrorMessages_deletesDaysMissingFromThePayload() {
+        dbHelper.upsertMessages(Arrays.asList(message(0, "eins"), message(1, "zwei"), message(2, "drei")));
+
+        UpsertResult result = dbHelper.mirrorMessages(Arrays.asList(message(0, "eins"), message(2, "drei!")));
+
+        assertEquals(0, result.inserted);
+        assertEquals(1, result.updated);
+        assertEquals(1, result.unchanged);
+        assertEquals(1, result.deleted);
+        assertEquals(2, dbHelper.getMessagesBetweenDays(BASE_DAY, BASE_DAY + 10).size());
+    }
+
+    @Test
+    public void mirrorTimelineEvents_upsertsAndDeletes() {
+        dbHelper.upsertTimelineEvents(Arrays.asList(event(0, "Kennenlernen", "Café"), event(5, "Urlaub", "Meer")));
+
+        UpsertResult result = dbHelper.mirrorTimelineEvents(Arrays.asList(
+                event(0, "Kennenlernen", "Café am Markt"), event(9, "Umzug", "Neue Wohnung")));
+
+        assertEquals(1, result.inserted);
+        assertEquals(1, result.updated);
+        assertEquals(1, result.deleted);
+        assertEquals(Arrays.asList("Kennenlernen", "Umzug"), titles(dbHelper.getAllTimelineEvents()));
+    }
+
+    @Test
+    public void getTimelineEventsAfter_pagesThroughAllEventsInOrder() {
+        dbHelper.upsertTimelineEvents(Arrays.asList(event(3, "C", null), event(1, "A", null),
+                event(3, "D", null), event(1, "B", null), event(7, "E", null)));
+
+        List<TimelineEvent> paged = new ArrayList<>();
+        List<TimelineEvent> page = dbHelper.getTimelineEventsAfter(EpochDays.NONE, 0, 2);
+        while (!page.isEmpty()) {
+            paged.addAll(page);
+            TimelineEvent last = page.get(page.size() - 1);
+            page = dbHelper.getTimelineEventsAfter(last.getEpochDay(), last.getId(), 2);
+        }
+
+        assertEquals(titles(dbHelper.getAllTimelineEvents()), titles(paged));
+        assertEquals(5, paged.size());
+    }
+
+    @Test
+    public void searchTimelineEvents_ranksTitleHitsFirst() {
+        dbHelper.upsertTimelineEvents(Arrays.asList(event(0, "Abendessen", "Pizza am Meer"),
+                event(1, "Pizza backen", "Zu Hause")));
+
+        assertEquals(Arrays.asList("Pizza backen", "Abendessen"), titles(dbHelper.searchTimelineEvents("pizz", 10)));
+    }
+
+    @Test
+    public void searchTimelineEvents_followsUpdatesAndDeletes() {
+        dbHelper.upsertTimelineEvents(Collections.singletonList(event(0, "Ausflug", "Berge")));
+        dbHelper.upsertTimelineEvents(Collections.singletonList(event(0, "Ausflug", "See")));
+
+        assertTrue(dbHelper.searchTimelineEvents("berge", 10).isEmpty());
+        assertEquals(1, dbHelper.searchTimelineEvents("see", 10).size());
+
+        dbHelper.mirrorTimelineEvents(Collections.emptyList());
+        assertTrue(dbHelper.searchTimelineEvents("ausflug", 10).isEmpty());
+    }
+
+    private static Message message(int dayOffset, String text) {
+        return new Message(text, "love", EpochDays.format(BASE_DAY + dayOffset));
+    }
+
+    private static TimelineEvent event(int dayOffset, String title, String description) {
+        return new TimelineEvent(EpochDays.format(BASE_DAY + dayOffset), title, description, null, TimelineEvent.DEFAULT_TYPE);
+    }
+
+    private static List<String> titles(List<TimelineEvent> events) {
+        List<String> titles = new ArrayList<>();
+        for (TimelineEvent event : events) {
+            titles.add(event.getTitle());
+        }
+        return titles;
+    }
+}
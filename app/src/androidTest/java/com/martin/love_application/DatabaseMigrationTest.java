@@ -0,0 +1,127 @@
+package com.martin.love_application;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades a database in the original v1 layout to the current version and checks that the
+ * rows written by old app versions survive every migration.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMigrationTest {
+
+    private static final String TEST_DATABASE = "migration-test.db";
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        createVersion1Database();
+        // The file exists, so the prebuilt database is not installed and onUpgrade runs from v1
+        dbHelper = new DatabaseHelper(context, TEST_DATABASE);
+        dbHelper.getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void upgrade_reachesTheCurrentVersion() {
+        assertTrue(dbHelper.getReadableDatabase().getVersion() > 1);
+    }
+
+    @Test
+    public void upgrade_mergesDuplicateTimelineEvents() {
+        List<TimelineEvent> events = dbHelper.getAllTimelineEvents();
+
+        assertEquals(2, events.size());
+        TimelineEvent firstDate = events.get(0);
+        assertEquals("Erstes Date", firstDate.getTitle());
+        // The newer, empty copy survives and takes over what the older one had
+        assertEquals("Kino", firstDate.getDescription());
+        assertEquals(Arrays.asList("kino.jpg", "popcorn.jpg"), firstDate.getPhotoList());
+    }
+
+    @Test
+    public void upgrade_keepsTheUnlockedMessageOfADay() {
+        List<Message> messages = dbHelper.getMessagesBetweenDays(EpochDays.parse("2025-01-01"), EpochDays.parse("2025-01-01"));
+
+        assertEquals(1, messages.size());
+        assertEquals("Schon gelesen", messages.get(0).getText());
+        assertTrue(messages.get(0).isUnlocked());
+    }
+
+    @Test
+    public void upgrade_backfillsEpochDays() {
+        List<Message> messages = dbHelper.getMessagesBetweenDays(EpochDays.parse("2025-01-02"), EpochDays.parse("2025-01-02"));
+        assertEquals(1, messages.size());
+        assertEquals("Morgen", messages.get(0).getText());
+
+        TimelineEvent christmas = dbHelper.getAllTimelineEvents().get(1);
+        assertEquals(EpochDays.parse("2024-12-24"), christmas.getEpochDay());
+    }
+
+    @Test
+    public void upgrade_keepsMessagesWithoutAValidDate() {
+        boolean found = false;
+        for (Message message : dbHelper.getAllMessages()) {
+            found |= "Ohne Datum".equals(message.getText());
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    public void upgrade_indexesExistingRowsForSearch() {
+        List<TimelineEvent> results = dbHelper.searchTimelineEvents("weihn", 10);
+
+        assertEquals(1, results.size());
+        assertEquals("Weihnachten", results.get(0).getTitle());
+    }
+
+    // Tables as the first app version created them, with the duplicates old syncs could leave behind
+    private void createVersion1Database() {
+        File file = context.getDatabasePath(TEST_DATABASE);
+        file.getParentFile().mkdirs();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        try {
+            db.execSQL("CREATE TABLE daily_messages(id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "message_text TEXT NOT NULL, message_type TEXT, message_date TEXT, is_unlocked INTEGER DEFAULT 0)");
+            db.execSQL("CREATE TABLE timeline_events(id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "event_date TEXT NOT NULL, event_title TEXT NOT NULL, event_description TEXT,"
+                    + "event_photos TEXT, event_type TEXT)");
+
+            db.execSQL("INSERT INTO daily_messages(message_text, message_type, message_date, is_unlocked) VALUES"
+                    + "('Schon gelesen', 'love', '2025-01-01', 1),"
+                    + "('Doppelt', 'love', '2025-01-01', 0),"
+                    + "('Morgen', 'love', '2025-01-02', 0),"
+                    + "('Ohne Datum', 'love', 'irgendwann', 0)");
+            db.execSQL("INSERT INTO timeline_events(event_date, event_title, event_description, event_photos, event_type) VALUES"
+                    + "('2024-11-01', 'Erstes Date', 'Kino', 'kino.jpg,popcorn.jpg', 'memory'),"
+                    + "('2024-11-01', 'Erstes Date', '', NULL, 'memory'),"
+                    + "('2024-12-24', 'Weihnachten', 'Plätzchen backen', NULL, 'memory')");
+            db.setVersion(1);
+        } finally {
+            db.close();
+        }
+    }
+}
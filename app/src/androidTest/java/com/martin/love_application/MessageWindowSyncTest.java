@@ -0,0 +1,94 @@
+package com.martin.love_application;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The windowed message sync is opt-in and may only ever touch the days inside its window.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MessageWindowSyncTest {
+
+    private static final String TEST_DATABASE = "message-window-test.db";
+    private static final long BASE_DAY = EpochDays.parse("2025-01-01");
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dbHelper = new DatabaseHelper(context, TEST_DATABASE);
+        // Start without the seeded rows of the prebuilt database
+        dbHelper.mirrorMessages(Collections.emptyList());
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void windowMode_isOptInAndPersisted() {
+        boolean previous = FirebaseDataManager.isMessageWindowEnabled(context);
+        try {
+            FirebaseDataManager.setMessageWindowEnabled(context, true);
+            assertTrue(FirebaseDataManager.isMessageWindowEnabled(context));
+            FirebaseDataManager.setMessageWindowEnabled(context, false);
+            assertFalse(FirebaseDataManager.isMessageWindowEnabled(context));
+        } finally {
+            FirebaseDataManager.setMessageWindowEnabled(context, previous);
+        }
+    }
+
+    @Test
+    public void mergeMessageWindow_upsertsInsideTheWindowOnly() {
+        dbHelper.upsertMessages(Arrays.asList(message(10, "vorher"), message(20, "alt"), message(30, "danach")));
+
+        UpsertResult result = dbHelper.mergeMessageWindow(BASE_DAY + 15, BASE_DAY + 25,
+                Arrays.asList(message(20, "neu"), message(22, "dazu"), message(40, "außerhalb")));
+
+        assertEquals(1, result.inserted);
+        assertEquals(1, result.updated);
+        assertEquals(0, result.deleted);
+        assertEquals(Arrays.asList("vorher", "neu", "dazu", "danach"), storedTexts());
+    }
+
+    @Test
+    public void mergeMessageWindow_deletesWindowDaysMissingFromThePayload() {
+        dbHelper.upsertMessages(Arrays.asList(message(10, "vorher"), message(20, "weg"), message(30, "danach")));
+
+        UpsertResult result = dbHelper.mergeMessageWindow(BASE_DAY + 15, BASE_DAY + 25, new ArrayList<>());
+
+        assertEquals(1, result.deleted);
+        assertEquals(Arrays.asList("vorher", "danach"), storedTexts());
+    }
+
+    private static Message message(int dayOffset, String text) {
+        return new Message(text, "love", EpochDays.format(BASE_DAY + dayOffset));
+    }
+
+    private List<String> storedTexts() {
+        List<String> texts = new ArrayList<>();
+        for (Message message : dbHelper.getMessagesBetweenDays(BASE_DAY, BASE_DAY + 100)) {
+            texts.add(message.getText());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,129 @@
+package com.martin.love_application;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The prebuilt database is built from src/main/database/schema.sql, fresh installs without it run
+ * DatabaseHelper.onCreate. Both first-run paths must end with the same schema and the same timeline.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PrebuiltSchemaTest {
+
+    private static final String PREBUILT_ASSET = "prebuilt/LoveApp.db";
+    private static final String PREBUILT_COPY = "prebuilt-copy-test.db";
+    private static final String CREATED_DATABASE = "on-create-test.db";
+
+    private Context context;
+    private SQLiteDatabase prebuilt;
+    private SQLiteDatabase created;
+
+    @Before
+    public void setUp() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(PREBUILT_COPY);
+        context.deleteDatabase(CREATED_DATABASE);
+
+        File prebuiltFile = context.getDatabasePath(PREBUILT_COPY);
+        prebuiltFile.getParentFile().mkdirs();
+        try (InputStream in = context.getAssets().open(PREBUILT_ASSET);
+             OutputStream out = new FileOutputStream(prebuiltFile)) {
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        prebuilt = SQLiteDatabase.openDatabase(prebuiltFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+
+        // Run onCreate on an empty file, the path taken when the asset is missing or outdated
+        created = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(CREATED_DATABASE), null);
+        DatabaseHelper helper = new DatabaseHelper(context, CREATED_DATABASE);
+        helper.onCreate(created);
+        helper.close();
+    }
+
+    @After
+    public void tearDown() {
+        prebuilt.close();
+        created.close();
+        context.deleteDatabase(PREBUILT_COPY);
+        context.deleteDatabase(CREATED_DATABASE);
+    }
+
+    @Test
+    public void schemaFile_matchesOnCreate() {
+        assertEquals(describeSchema(created), describeSchema(prebuilt));
+    }
+
+    @Test
+    public void bothPaths_seedTheSameTimeline() {
+        assertEquals(count(created, DatabaseHelper.TABLE_TIMELINE), count(prebuilt, DatabaseHelper.TABLE_TIMELINE));
+        assertEquals(count(created, DatabaseHelper.TABLE_PHOTOS), count(prebuilt, DatabaseHelper.TABLE_PHOTOS));
+        assertTrue(count(prebuilt, DatabaseHelper.TABLE_TIMELINE) > 0);
+    }
+
+    // One line per schema object: the columns of plain tables (ALTER TABLE rewrites their CREATE text),
+    // the whitespace-normalized CREATE statement of everything else
+    private static List<String> describeSchema(SQLiteDatabase db) {
+        List<String> schema = new ArrayList<>();
+        Cursor objects = db.rawQuery("SELECT type, name, sql FROM sqlite_master"
+                + " WHERE name NOT LIKE 'sqlite_%' ORDER BY type, name", null);
+        try {
+            while (objects.moveToNext()) {
+                String type = objects.getString(0);
+                String name = objects.getString(1);
+                String sql = objects.isNull(2) ? "" : objects.getString(2).replaceAll("\\s+", " ").trim();
+                if ("table".equals(type) && !sql.startsWith("CREATE VIRTUAL")) {
+                    schema.add("table " + name + describeColumns(db, name));
+                } else {
+                    schema.add(type + " " + name + ": " + sql);
+                }
+            }
+        } finally {
+            objects.close();
+        }
+        return schema;
+    }
+
+    private static String describeColumns(SQLiteDatabase db, String table) {
+        StringBuilder columns = new StringBuilder();
+        // name, type, notnull, dflt_value, pk
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        try {
+            while (cursor.moveToNext()) {
+                columns.append(" | ").append(cursor.getString(1)).append(' ').append(cursor.getString(2))
+                        .append(cursor.getInt(3) != 0 ? " NOT NULL" : "")
+                        .append(cursor.isNull(4) ? "" : " DEFAULT " + cursor.getString(4))
+                        .append(cursor.getInt(5) != 0 ? " PK" : "");
+            }
+        } finally {
+            cursor.close();
+        }
+        return columns.toString();
+    }
+
+    private static long count(SQLiteDatabase db, String table) {
+        return DatabaseUtils.queryNumEntries(db, table);
+    }
+}
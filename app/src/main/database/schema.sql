@@ -0,0 +1,54 @@
+-- Final schema of LoveApp.db, used to build the prebuilt database shipped in assets.
+-- Must match what DatabaseHelper.onCreate + migrate() produce for the version below;
+-- the build fails if this version and DatabaseHelper.DATABASE_VERSION differ, and
+-- PrebuiltSchemaTest (androidTest) compares the resulting schema with onCreate.
+-- version: 6
+
+CREATE TABLE daily_messages(
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    message_text TEXT NOT NULL,
+    message_type TEXT,
+    message_date TEXT,
+    is_unlocked INTEGER DEFAULT 0,
+    message_day INTEGER,
+    content_hash INTEGER
+);
+
+CREATE TABLE timeline_events(
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    event_date TEXT NOT NULL,
+    event_title TEXT NOT NULL,
+    event_description TEXT,
+    event_photos TEXT,
+    event_type TEXT,
+    event_day INTEGER,
+    content_hash INTEGER
+);
+
+CREATE TABLE timeline_photos(
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    event_id INTEGER NOT NULL REFERENCES timeline_events(id) ON DELETE CASCADE,
+    position INTEGER NOT NULL,
+    photo_path TEXT NOT NULL,
+    width INTEGER,
+    height INTEGER,
+    thumbnail_path TEXT,
+    UNIQUE(event_id, position)
+);
+
+CREATE UNIQUE INDEX idx_timeline_events_date_title ON timeline_events(event_date, event_title);
+CREATE UNIQUE INDEX idx_daily_messages_day ON daily_messages(message_day);
+CREATE INDEX idx_timeline_events_day ON timeline_events(event_day, id);
+
+CREATE VIRTUAL TABLE messages_fts USING fts4(content="daily_messages", message_text);
+CREATE VIRTUAL TABLE timeline_fts USING fts4(content="timeline_events", event_title, event_description);
+
+CREATE TRIGGER messages_fts_bu BEFORE UPDATE ON daily_messages BEGIN DELETE FROM messages_fts WHERE docid = old.id; END;
+CREATE TRIGGER messages_fts_bd BEFORE DELETE ON daily_messages BEGIN DELETE FROM messages_fts WHERE docid = old.id; END;
+CREATE TRIGGER messages_fts_au AFTER UPDATE ON daily_messages BEGIN INSERT INTO messages_fts(docid, message_text) VALUES (new.id, new.message_text); END;
+CREATE TRIGGER messages_fts_ai AFTER INSERT ON daily_messages BEGIN INSERT INTO messages_fts(docid, message_text) VALUES (new.id, new.message_text); END;
+
+CREATE TRIGGER timeline_fts_bu BEFORE UPDATE ON timeline_events BEGIN DELETE FROM timeline_fts WHERE docid = old.id; END;
+CREATE TRIGGER timeline_fts_bd BEFORE DELETE ON timeline_events BEGIN DELETE FROM timeline_fts WHERE docid = old.id; END;
+CREATE TRIGGER timeline_fts_au AFTER UPDATE ON timeline_events BEGIN INSERT INTO timeline_fts(docid, event_title, event_description) VALUES (new.id, new.event_title, new.event_description); END;
+CREATE TRIGGER timeline_fts_ai AFTER INSERT ON timeline_events BEGIN INSERT INTO timeline_fts(docid, event_title, event_description) VALUES (new.id, new.event_title, new.event_description); END;
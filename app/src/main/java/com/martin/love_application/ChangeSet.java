@@ -0,0 +1,45 @@
+package com.martin.love_application;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Rows a committed write inserted, updated or deleted in one table.
+ * Keys are row ids for the timeline and epoch days for messages. A reset change set stands for
+ * changes that are not tracked row by row (bulk replace, clear) - observers reload everything.
+ */
+public final class ChangeSet {
+
+    public final String table;
+    public final boolean reset;
+    public final Set<Long> inserted;
+    public final Set<Long> updated;
+    public final Set<Long> deleted;
+
+    ChangeSet(String table, Set<Long> inserted, Set<Long> updated, Set<Long> deleted) {
+        this(table, false, inserted, updated, deleted);
+    }
+
+    private ChangeSet(String table, boolean reset, Set<Long> inserted, Set<Long> updated, Set<Long> deleted) {
+        this.table = table;
+        this.reset = reset;
+        this.inserted = Collections.unmodifiableSet(new LinkedHashSet<>(inserted));
+        this.updated = Collections.unmodifiableSet(new LinkedHashSet<>(updated));
+        this.deleted = Collections.unmodifiableSet(new LinkedHashSet<>(deleted));
+    }
+
+    static ChangeSet reset(String table) {
+        return new ChangeSet(table, true, Collections.emptySet(), Collections.emptySet(), Collections.emptySet());
+    }
+
+    public boolean isEmpty() {
+        return !reset && inserted.isEmpty() && updated.isEmpty() && deleted.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return table + (reset ? ": reset" : ": " + inserted.size() + " inserted, " + updated.size() + " updated, "
+                + deleted.size() + " deleted");
+    }
+}
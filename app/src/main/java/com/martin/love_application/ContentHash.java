@@ -0,0 +1,57 @@
+package com.martin.love_application;
+
+import java.util.List;
+
+/**
+ * 64-bit FNV-1a hash over record fields, stored next to synced rows so an
+ * unchanged record can be recognised without comparing every column.
+ */
+public final class ContentHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Separates fields so ("ab", "c") and ("a", "bc") hash differently
+    private static final char FIELD_SEPARATOR = '\u001f';
+    private static final char NULL_MARKER = '\u0000';
+
+    private ContentHash() {}
+
+    public static long of(String... fields) {
+        long hash = FNV_OFFSET_BASIS;
+        for (String field : fields) {
+            hash = add(hash, field);
+        }
+        return hash;
+    }
+
+    /**
+     * Hash the given fields followed by a list, e.g. the photo paths of an event.
+     */
+    public static long of(List<String> list, String... fields) {
+        long hash = of(fields);
+        for (String item : list) {
+            hash = add(hash, item);
+        }
+        return hash;
+    }
+
+    private static long add(long hash, String field) {
+        if (field == null) {
+            hash = mix(hash, NULL_MARKER);
+        } else {
+            for (int i = 0; i < field.length(); i++) {
+                hash = mix(hash, field.charAt(i));
+            }
+        }
+        return mix(hash, FIELD_SEPARATOR);
+    }
+
+    private static long mix(long hash, char c) {
+        hash ^= c & 0xff;
+        hash *= FNV_PRIME;
+        hash ^= c >>> 8;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+}
@@ -25,7 +25,7 @@ public class DailyMessageActivity extends AppCompatActivity {
     private MaterialCardView messageCard;
     private LinearLayout mainLayout;
 
-    private DatabaseHelper dbHelper;
+    private LoveRepository repository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -59,11 +59,15 @@ public class DailyMessageActivity extends AppCompatActivity {
     }
 
     private void setupDatabase() {
-        dbHelper = DatabaseHelper.getInstance(this);
+        repository = LoveRepository.getInstance(this);
     }
 
     private void loadTodaysMessage() {
-        Message todaysMessage = dbHelper.getTodaysMessage();
+        // Read off the main thread - the result is dropped if this Activity is gone by then
+        repository.getTodaysMessage(this, this::showTodaysMessage);
+    }
+
+    private void showTodaysMessage(Message todaysMessage) {
 
         if (todaysMessage != null) {
             // Display the message
@@ -82,7 +86,7 @@ public class DailyMessageActivity extends AppCompatActivity {
 
             // Mark message as unlocked if not already
             if (!todaysMessage.isUnlocked()) {
-                dbHelper.unlockTodaysMessage();
+                repository.unlockTodaysMessage();
             }
 
         } else {
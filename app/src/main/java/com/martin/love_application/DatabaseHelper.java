@@ -3,57 +3,132 @@ package com.martin.love_application;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.text.SimpleDateFormat;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "LoveApp.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 6; // Keep src/main/database/schema.sql in step
+
+    // Built by the app module's buildPrebuiltDatabase task
+    private static final String PREBUILT_DATABASE_ASSET = "prebuilt/LoveApp.db";
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
 
     // Daily Messages Table
-    private static final String TABLE_MESSAGES = "daily_messages";
+    public static final String TABLE_MESSAGES = "daily_messages";
     private static final String COLUMN_MESSAGE_ID = "id";
     private static final String COLUMN_MESSAGE_TEXT = "message_text";
     private static final String COLUMN_MESSAGE_TYPE = "message_type";
     private static final String COLUMN_MESSAGE_DATE = "message_date";
     private static final String COLUMN_IS_UNLOCKED = "is_unlocked";
+    private static final String COLUMN_MESSAGE_DAY = "message_day"; // epoch day of message_date (v3)
+    private static final String COLUMN_MESSAGE_HASH = "content_hash"; // ContentHash of type + text (v6)
 
     // Timeline Events Table
-    private static final String TABLE_TIMELINE = "timeline_events";
+    public static final String TABLE_TIMELINE = "timeline_events";
     private static final String COLUMN_TIMELINE_ID = "id";
     private static final String COLUMN_EVENT_DATE = "event_date";
     private static final String COLUMN_EVENT_TITLE = "event_title";
     private static final String COLUMN_EVENT_DESCRIPTION = "event_description";
-    private static final String COLUMN_EVENT_PHOTOS = "event_photos";
+    private static final String COLUMN_EVENT_PHOTOS = "event_photos"; // Legacy comma-joined paths, moved to timeline_photos in v5
     private static final String COLUMN_EVENT_TYPE = "event_type";
+    private static final String COLUMN_EVENT_DAY = "event_day"; // epoch day of event_date (v3)
+    private static final String COLUMN_EVENT_HASH = "content_hash"; // ContentHash of description, type and photos (v6)
+
+    // Timeline Photos Table (schema v5) - ordered child rows per event
+    public static final String TABLE_PHOTOS = "timeline_photos";
+    private static final String COLUMN_PHOTO_ID = "id";
+    private static final String COLUMN_PHOTO_EVENT_ID = "event_id";
+    private static final String COLUMN_PHOTO_POSITION = "position";
+    private static final String COLUMN_PHOTO_PATH = "photo_path";
+    private static final String COLUMN_PHOTO_WIDTH = "width";
+    private static final String COLUMN_PHOTO_HEIGHT = "height";
+    private static final String COLUMN_PHOTO_THUMBNAIL = "thumbnail_path";
+
+    // Indexes (schema v2)
+    private static final String INDEX_MESSAGES_DATE = "idx_daily_messages_date";
+    private static final String INDEX_TIMELINE_DATE_TITLE = "idx_timeline_events_date_title";
+
+    // Indexes (schema v3)
+    private static final String INDEX_MESSAGES_DAY = "idx_daily_messages_day";
+    private static final String INDEX_TIMELINE_DAY = "idx_timeline_events_day";
+
+    // Full-text search (schema v4) - external content FTS4 tables kept in sync by triggers
+    private static final String TABLE_MESSAGES_FTS = "messages_fts";
+    private static final String TABLE_TIMELINE_FTS = "timeline_fts";
+    private static final String COLUMN_FTS_DOCID = "docid";
+    private static final double TIMELINE_TITLE_WEIGHT = 2.0;
+    private static final double TIMELINE_DESCRIPTION_WEIGHT = 1.0;
+
+    // Projections - list reads skip columns the screen never shows
+    private static final String[] MESSAGE_COLUMNS = {
+            COLUMN_MESSAGE_ID, COLUMN_MESSAGE_TEXT, COLUMN_MESSAGE_TYPE,
+            COLUMN_MESSAGE_DATE, COLUMN_MESSAGE_DAY, COLUMN_IS_UNLOCKED
+    };
+    // Photos live in timeline_photos and are loaded lazily per event
+    private static final String[] TIMELINE_COLUMNS = {
+            COLUMN_TIMELINE_ID, COLUMN_EVENT_DATE, COLUMN_EVENT_DAY, COLUMN_EVENT_TITLE,
+            COLUMN_EVENT_DESCRIPTION, COLUMN_EVENT_TYPE
+    };
+
+    // Primary connection tuning - negative cache_size is in KiB. See onConfigure for the scope.
+    private static final int PAGE_CACHE_KIB = 4 * 1024;
+    private static final long MMAP_SIZE_BYTES = 32L * 1024 * 1024;
+
+    // SQLITE_MAX_VARIABLE_NUMBER of the oldest supported platform SQLite
+    private static final int MAX_SQL_VARIABLES = 999;
 
     private final Context context;
+    private final TodayMessageCache todayCache;
+    private final TableChangeTracker changeTracker = new TableChangeTracker();
+    private volatile boolean prebuiltChecked;
 
     private static DatabaseHelper instance; // 👈 Declare the static instance
 
     // Make the constructor private
     private DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    // Instrumentation tests open their own database file next to the app's
+    DatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
         this.context = context;
+        // Readers (UI) and writers (sync threads) can work concurrently in WAL mode
+        setWriteAheadLoggingEnabled(true);
+
+        this.todayCache = new TodayMessageCache(this::getMessagesBetweenDays);
+        context.registerComponentCallbacks(todayCache);
+        // Any committed change to the messages table may affect today's or tomorrow's message
+        changeTracker.addObserver(TABLE_MESSAGES, table -> todayCache.invalidate());
     }
 
     /**
      * Gets the single instance of the DatabaseHelper.
+     * The underlying connection is opened once and stays open for the lifetime
+     * of the process - callers must never close the database themselves.
      * @param context The application context.
      * @return The single instance of DatabaseHelper.
      */
@@ -66,11 +141,122 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     }
 
 
+    /**
+     * Version of a table, bumped after every committed write to it.
+     * Screens remember the value from their last load and skip reloading while it is unchanged.
+     */
+    public long getTableVersion(String table) {
+        return changeTracker.getVersion(table);
+    }
+
+    /**
+     * Observe committed writes to a table. Observers run on the writing thread.
+     */
+    void addTableObserver(String table, TableChangeTracker.Observer observer) {
+        changeTracker.addObserver(table, observer);
+    }
+
+    void removeTableObserver(String table, TableChangeTracker.Observer observer) {
+        changeTracker.removeObserver(table, observer);
+    }
+
+    /**
+     * Observe the rows committed writes touch in a table. Observers run on the writing thread.
+     */
+    void addChangeSetObserver(String table, TableChangeTracker.ChangeSetObserver observer) {
+        changeTracker.addChangeSetObserver(table, observer);
+    }
+
+    void removeChangeSetObserver(String table, TableChangeTracker.ChangeSetObserver observer) {
+        changeTracker.removeChangeSetObserver(table, observer);
+    }
+
+    @Override
+    public SQLiteDatabase getWritableDatabase() {
+        installPrebuiltDatabase();
+        return super.getWritableDatabase();
+    }
+
+    @Override
+    public SQLiteDatabase getReadableDatabase() {
+        installPrebuiltDatabase();
+        return super.getReadableDatabase();
+    }
+
+    /**
+     * On first launch, copy the prebuilt database from assets instead of building it in onCreate.
+     * Falls back to onCreate when the asset is missing or was built for another schema version.
+     */
+    private void installPrebuiltDatabase() {
+        if (prebuiltChecked) {
+            return;
+        }
+        synchronized (this) {
+            if (prebuiltChecked) {
+                return;
+            }
+            prebuiltChecked = true;
+
+            File dbFile = context.getDatabasePath(getDatabaseName());
+            if (dbFile.exists()) {
+                return;
+            }
+            File parent = dbFile.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                return;
+            }
+
+            // Copy to a temporary file first so a partial copy is never opened as the real database
+            File tmpFile = new File(dbFile.getPath() + ".prebuilt");
+            long start = System.nanoTime();
+            try (InputStream in = context.getAssets().open(PREBUILT_DATABASE_ASSET);
+                 OutputStream out = new FileOutputStream(tmpFile)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                Log.d("DatabaseHelper", "No prebuilt database available - creating schema on device");
+                tmpFile.delete();
+                return;
+            }
+
+            int version;
+            try (SQLiteDatabase prebuilt = SQLiteDatabase.openDatabase(tmpFile.getPath(), null,
+                    SQLiteDatabase.OPEN_READONLY)) {
+                version = prebuilt.getVersion();
+            } catch (RuntimeException e) {
+                version = -1;
+            }
+            if (version != DATABASE_VERSION || !tmpFile.renameTo(dbFile)) {
+                Log.w("DatabaseHelper", "Prebuilt database v" + version + " not usable for v" + DATABASE_VERSION);
+                tmpFile.delete();
+                return;
+            }
+            Log.d("DatabaseHelper", "Installed prebuilt database in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
 //    public DatabaseHelper(Context context) {
 //        super(context, DATABASE_NAME, null, DATABASE_VERSION);
 //        this.context = context;
 //    }
 
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // timeline_photos rows are removed together with their event
+        db.setForeignKeyConstraintsEnabled(true);
+        // cache_size and mmap_size are per connection and only reach the primary connection, which runs
+        // every write and the reads that get it first. The extra read connections WAL opens keep the
+        // platform defaults - there is no framework hook to configure those.
+        db.execSQL("PRAGMA cache_size = -" + PAGE_CACHE_KIB);
+        // mmap_size returns the applied value, so it has to be run as a query
+        long mmapSize = DatabaseUtils.longForQuery(db, "PRAGMA mmap_size = " + MMAP_SIZE_BYTES, null);
+        Log.d("DatabaseHelper", "Primary connection configured - WAL enabled, mmap_size " + mmapSize);
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         // Create daily messages table
@@ -95,86 +281,256 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(createMessagesTable);
         db.execSQL(createTimelineTable);
 
+        // Fresh installs start from the v1 schema and run the same migrations as upgrades
+        migrate(db, 1, DATABASE_VERSION);
+
         // Call the single method to populate all initial data
         insertInitialData(db);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MESSAGES);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_TIMELINE);
-        onCreate(db);
+        // Runs inside the transaction opened by SQLiteOpenHelper - existing rows are kept
+        migrate(db, oldVersion, newVersion);
     }
 
-    // New master method to handle all initial data insertion
-    private void insertInitialData(SQLiteDatabase db) {
-        // Skip loading initial data - app will start empty and use GitHub data only
-        Log.d("DatabaseHelper", "Skipping initial data insertion - using GitHub data only");
+    /**
+     * Apply every schema migration after fromVersion up to and including toVersion.
+     * Each step must keep existing data; add a new case for every version bump.
+     */
+    private void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        for (int version = fromVersion + 1; version <= toVersion; version++) {
+            switch (version) {
+                case 2:
+                    migrateToVersion2(db);
+                    break;
+                case 3:
+                    migrateToVersion3(db);
+                    break;
+                case 4:
+                    migrateToVersion4(db);
+                    break;
+                case 5:
+                    migrateToVersion5(db);
+                    break;
+                case 6:
+                    migrateToVersion6(db);
+                    break;
+                default:
+                    throw new IllegalStateException("No migration defined for database version " + version);
+            }
+            Log.d("DatabaseHelper", "Migrated database to version " + version);
+        }
+    }
+
+    // v2: indexes for date lookups and a uniqueness constraint on timeline events
+    private void migrateToVersion2(SQLiteDatabase db) {
+        // Older syncs could insert the same event twice. The newest copy survives so the unique index
+        // can be built; it first takes over description and photos from an older copy where it has none.
+        String sameEvent = " FROM " + TABLE_TIMELINE + " d WHERE d." + COLUMN_EVENT_DATE + " = "
+                + TABLE_TIMELINE + "." + COLUMN_EVENT_DATE + " AND d." + COLUMN_EVENT_TITLE + " = "
+                + TABLE_TIMELINE + "." + COLUMN_EVENT_TITLE;
+        db.execSQL("UPDATE " + TABLE_TIMELINE + " SET "
+                + COLUMN_EVENT_DESCRIPTION + " = COALESCE(NULLIF(" + COLUMN_EVENT_DESCRIPTION + ", ''), (SELECT d."
+                + COLUMN_EVENT_DESCRIPTION + sameEvent + " AND d." + COLUMN_EVENT_DESCRIPTION + " != ''"
+                + " ORDER BY d." + COLUMN_TIMELINE_ID + " DESC LIMIT 1)), "
+                + COLUMN_EVENT_PHOTOS + " = COALESCE(NULLIF(" + COLUMN_EVENT_PHOTOS + ", ''), (SELECT d."
+                + COLUMN_EVENT_PHOTOS + sameEvent + " AND d." + COLUMN_EVENT_PHOTOS + " != ''"
+                + " ORDER BY d." + COLUMN_TIMELINE_ID + " DESC LIMIT 1))"
+                + " WHERE " + COLUMN_TIMELINE_ID + " IN (SELECT MAX(" + COLUMN_TIMELINE_ID + ") FROM " + TABLE_TIMELINE
+                + " GROUP BY " + COLUMN_EVENT_DATE + ", " + COLUMN_EVENT_TITLE + " HAVING COUNT(*) > 1)");
+        int merged = executeUpdateDelete(db, "DELETE FROM " + TABLE_TIMELINE + " WHERE " + COLUMN_TIMELINE_ID
+                + " NOT IN (SELECT MAX(" + COLUMN_TIMELINE_ID + ") FROM " + TABLE_TIMELINE
+                + " GROUP BY " + COLUMN_EVENT_DATE + ", " + COLUMN_EVENT_TITLE + ")");
+        if (merged > 0) {
+            Log.i("DatabaseHelper", "Migration v2: merged " + merged + " duplicate timeline events");
+        }
+
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_MESSAGES_DATE
+                + " ON " + TABLE_MESSAGES + "(" + COLUMN_MESSAGE_DATE + ")");
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + INDEX_TIMELINE_DATE_TITLE
+                + " ON " + TABLE_TIMELINE + "(" + COLUMN_EVENT_DATE + ", " + COLUMN_EVENT_TITLE + ")");
+    }
+
+    // v3: integer epoch-day keys replace TEXT dates for lookups and ordering
+    private void migrateToVersion3(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_MESSAGES + " ADD COLUMN " + COLUMN_MESSAGE_DAY + " INTEGER");
+        db.execSQL("ALTER TABLE " + TABLE_TIMELINE + " ADD COLUMN " + COLUMN_EVENT_DAY + " INTEGER");
+
+        // julianday() yields NULL for malformed dates, which leaves the day key empty
+        db.execSQL("UPDATE " + TABLE_MESSAGES + " SET " + COLUMN_MESSAGE_DAY + " = "
+                + epochDaySql(COLUMN_MESSAGE_DATE));
+        db.execSQL("UPDATE " + TABLE_TIMELINE + " SET " + COLUMN_EVENT_DAY + " = "
+                + epochDaySql(COLUMN_EVENT_DATE));
+
+        // The day key takes over from the TEXT date index
+        db.execSQL("DROP INDEX IF EXISTS " + INDEX_MESSAGES_DATE);
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_MESSAGES_DAY
+                + " ON " + TABLE_MESSAGES + "(" + COLUMN_MESSAGE_DAY + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_TIMELINE_DAY
+                + " ON " + TABLE_TIMELINE + "(" + COLUMN_EVENT_DAY + ", " + COLUMN_TIMELINE_ID + ")");
+    }
+
+    // v4: full-text search over message texts and timeline titles/descriptions
+    private void migrateToVersion4(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_MESSAGES_FTS + " USING fts4("
+                + "content=\"" + TABLE_MESSAGES + "\", " + COLUMN_MESSAGE_TEXT + ")");
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_TIMELINE_FTS + " USING fts4("
+                + "content=\"" + TABLE_TIMELINE + "\", " + COLUMN_EVENT_TITLE + ", " + COLUMN_EVENT_DESCRIPTION + ")");
+
+        createFtsTriggers(db, TABLE_MESSAGES, TABLE_MESSAGES_FTS, COLUMN_MESSAGE_ID,
+                COLUMN_MESSAGE_TEXT);
+        createFtsTriggers(db, TABLE_TIMELINE, TABLE_TIMELINE_FTS, COLUMN_TIMELINE_ID,
+                COLUMN_EVENT_TITLE, COLUMN_EVENT_DESCRIPTION);
+
+        // Index the rows that already exist
+        db.execSQL("INSERT INTO " + TABLE_MESSAGES_FTS + "(" + TABLE_MESSAGES_FTS + ") VALUES('rebuild')");
+        db.execSQL("INSERT INTO " + TABLE_TIMELINE_FTS + "(" + TABLE_TIMELINE_FTS + ") VALUES('rebuild')");
     }
 
-    private void loadMessagesFromFile(SQLiteDatabase db) {
+    // v5: photos move from the comma-joined event_photos column into ordered timeline_photos rows
+    private void migrateToVersion5(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_PHOTOS + "("
+                + COLUMN_PHOTO_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + COLUMN_PHOTO_EVENT_ID + " INTEGER NOT NULL REFERENCES " + TABLE_TIMELINE
+                + "(" + COLUMN_TIMELINE_ID + ") ON DELETE CASCADE,"
+                + COLUMN_PHOTO_POSITION + " INTEGER NOT NULL,"
+                + COLUMN_PHOTO_PATH + " TEXT NOT NULL,"
+                + COLUMN_PHOTO_WIDTH + " INTEGER,"
+                + COLUMN_PHOTO_HEIGHT + " INTEGER,"
+                + COLUMN_PHOTO_THUMBNAIL + " TEXT,"
+                + "UNIQUE(" + COLUMN_PHOTO_EVENT_ID + ", " + COLUMN_PHOTO_POSITION + ")"
+                + ")");
+
+        Cursor cursor = db.query(TABLE_TIMELINE,
+                new String[]{COLUMN_TIMELINE_ID, COLUMN_EVENT_PHOTOS},
+                COLUMN_EVENT_PHOTOS + " IS NOT NULL AND " + COLUMN_EVENT_PHOTOS + " != ''",
+                null, null, null, null);
+        SQLiteStatement insertPhoto = compilePhotoInsert(db);
         try {
-            InputStream is = context.getAssets().open("messages.txt");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-            String line;
-            int dayOffset = 0;
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length == 2) {
-                    String messageType = parts[0];
-                    String messageText = parts[1];
-                    long timeMillis = System.currentTimeMillis() + (dayOffset * 24 * 60 * 60 * 1000L);
-                    String date = sdf.format(new Date(timeMillis));
-
-                    ContentValues values = new ContentValues();
-                    values.put(COLUMN_MESSAGE_TEXT, messageText);
-                    values.put(COLUMN_MESSAGE_TYPE, messageType);
-                    values.put(COLUMN_MESSAGE_DATE, date);
-                    values.put(COLUMN_IS_UNLOCKED, 0);
-                    db.insert(TABLE_MESSAGES, null, values);
-
-                    dayOffset++;
-                }
+            while (cursor.moveToNext()) {
+                insertPhotos(insertPhoto, cursor.getLong(0), TimelineEvent.parsePhotoList(cursor.getString(1)));
             }
-            reader.close();
-        } catch (IOException e) {
-            Log.e("DatabaseHelper", "Error reading messages.txt file", e);
+        } finally {
+            insertPhoto.close();
+            cursor.close();
+        }
+
+        // The legacy column cannot be dropped on older SQLite versions - clear it so there is one source of truth
+        db.execSQL("UPDATE " + TABLE_TIMELINE + " SET " + COLUMN_EVENT_PHOTOS + " = NULL");
+    }
+
+    // v6: content hashes for upserts, and the message day becomes the natural key
+    private void migrateToVersion6(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_MESSAGES + " ADD COLUMN " + COLUMN_MESSAGE_HASH + " INTEGER");
+        db.execSQL("ALTER TABLE " + TABLE_TIMELINE + " ADD COLUMN " + COLUMN_EVENT_HASH + " INTEGER");
+
+        // One message per day so the unique index can be built. An unlocked copy wins, so no opened
+        // day gets locked again; among equals the newest copy wins.
+        int merged = executeUpdateDelete(db, "DELETE FROM " + TABLE_MESSAGES + " WHERE " + COLUMN_MESSAGE_DAY
+                + " IS NOT NULL AND " + COLUMN_MESSAGE_ID + " != (SELECT k." + COLUMN_MESSAGE_ID
+                + " FROM " + TABLE_MESSAGES + " k WHERE k." + COLUMN_MESSAGE_DAY + " = "
+                + TABLE_MESSAGES + "." + COLUMN_MESSAGE_DAY
+                + " ORDER BY k." + COLUMN_IS_UNLOCKED + " DESC, k." + COLUMN_MESSAGE_ID + " DESC LIMIT 1)");
+        if (merged > 0) {
+            Log.i("DatabaseHelper", "Migration v6: merged " + merged + " duplicate messages into one per day");
+        }
+        db.execSQL("DROP INDEX IF EXISTS " + INDEX_MESSAGES_DAY);
+        db.execSQL("CREATE UNIQUE INDEX " + INDEX_MESSAGES_DAY
+                + " ON " + TABLE_MESSAGES + "(" + COLUMN_MESSAGE_DAY + ")");
+        // Existing rows keep a NULL hash, so the next sync rewrites them once
+    }
+
+    // External content FTS4 reads the old values from the content table, so removal has to run BEFORE the change
+    private static void createFtsTriggers(SQLiteDatabase db, String table, String ftsTable, String idColumn,
+                                          String... columns) {
+        String columnList = String.join(", ", columns);
+        StringBuilder newValues = new StringBuilder();
+        for (String column : columns) {
+            newValues.append(", new.").append(column);
         }
+        String remove = "DELETE FROM " + ftsTable + " WHERE " + COLUMN_FTS_DOCID + " = old." + idColumn + ";";
+        String add = "INSERT INTO " + ftsTable + "(" + COLUMN_FTS_DOCID + ", " + columnList + ")"
+                + " VALUES (new." + idColumn + newValues + ");";
+
+        db.execSQL("CREATE TRIGGER " + ftsTable + "_bu BEFORE UPDATE ON " + table + " BEGIN " + remove + " END");
+        db.execSQL("CREATE TRIGGER " + ftsTable + "_bd BEFORE DELETE ON " + table + " BEGIN " + remove + " END");
+        db.execSQL("CREATE TRIGGER " + ftsTable + "_au AFTER UPDATE ON " + table + " BEGIN " + add + " END");
+        db.execSQL("CREATE TRIGGER " + ftsTable + "_ai AFTER INSERT ON " + table + " BEGIN " + add + " END");
     }
 
-    private void loadTimelineEventsFromFile(SQLiteDatabase db) {
+    private static int executeUpdateDelete(SQLiteDatabase db, String sql) {
+        SQLiteStatement statement = db.compileStatement(sql);
         try {
-            InputStream is = context.getAssets().open("timeline_events.json");
-            int size = is.available();
-            byte[] buffer = new byte[size];
-            is.read(buffer);
-            is.close();
-            String jsonString = new String(buffer, "UTF-8");
-
-            JSONArray timelineArray = new JSONArray(jsonString);
-
-            for (int i = 0; i < timelineArray.length(); i++) {
-                JSONObject eventObject = timelineArray.getJSONObject(i);
-                ContentValues values = new ContentValues();
-                values.put(COLUMN_EVENT_DATE, eventObject.getString("date"));
-                values.put(COLUMN_EVENT_TITLE, eventObject.getString("title"));
-                values.put(COLUMN_EVENT_DESCRIPTION, eventObject.getString("description"));
-                values.put(COLUMN_EVENT_TYPE, eventObject.getString("type"));
-                if (eventObject.has("photos")) {
-                    values.put(COLUMN_EVENT_PHOTOS, eventObject.getString("photos"));
-                } else {
-                    values.put(COLUMN_EVENT_PHOTOS, "");
-                }
-                db.insert(TABLE_TIMELINE, null, values);
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static String epochDaySql(String dateColumn) {
+        return "CAST(julianday(substr(" + dateColumn + ", 1, 10)) - 2440587.5 AS INTEGER)";
+    }
+
+    // New master method to handle all initial data insertion
+    private void insertInitialData(SQLiteDatabase db) {
+        // Only reached when the prebuilt database could not be installed - seed the same
+        // bundled timeline it ships with, so both first-run paths start from the same content
+        Log.d("DatabaseHelper", "Prebuilt database unavailable - seeding bundled timeline");
+        importSeedAssets(db, false, true);
+    }
+
+    // Seed assets bundled with the app
+    private static final String MESSAGES_ASSET = "messages.txt";
+    private static final String TIMELINE_ASSET = "timeline_events.json";
+
+    /**
+     * Stream the bundled seed assets into the database inside one transaction.
+     * @param includeMessages Also import messages.txt, starting today
+     * @param includeTimeline Also import timeline_events.json
+     */
+    private void importSeedAssets(SQLiteDatabase db, boolean includeMessages, boolean includeTimeline) {
+        SeedImporter importer = new SeedImporter(context.getAssets(), (assetName, importedRows) ->
+                Log.d("DatabaseHelper", "Seeding " + assetName + ": " + importedRows + " rows"));
+        // Days that already have a message keep it
+        SQLiteStatement insertMessage = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_MESSAGES + "("
+                + COLUMN_MESSAGE_TEXT + ", " + COLUMN_MESSAGE_TYPE + ", "
+                + COLUMN_MESSAGE_DATE + ", " + COLUMN_MESSAGE_DAY + ") VALUES (?, ?, ?, ?)");
+        SQLiteStatement insertEvent = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_TIMELINE + "("
+                + COLUMN_EVENT_DATE + ", " + COLUMN_EVENT_TITLE + ", " + COLUMN_EVENT_DESCRIPTION + ", "
+                + COLUMN_EVENT_TYPE + ", " + COLUMN_EVENT_DAY + ") VALUES (?, ?, ?, ?, ?)");
+        SQLiteStatement insertPhoto = compilePhotoInsert(db);
+
+        long start = System.nanoTime();
+        boolean committed = false;
+        db.beginTransaction();
+        try {
+            if (includeMessages) {
+                importer.importMessages(MESSAGES_ASSET, insertMessage, EpochDays.today());
             }
-        } catch (IOException e) {
-            Log.e("DatabaseHelper", "Error reading timeline JSON file", e);
-        } catch (JSONException e) {
-            Log.e("DatabaseHelper", "Error parsing timeline JSON", e);
+            if (includeTimeline) {
+                importer.importTimelineEvents(TIMELINE_ASSET, insertEvent, insertPhoto);
+            }
+            db.setTransactionSuccessful();
+            committed = true;
+        } catch (IOException | RuntimeException e) {
+            // Nothing is committed, so a broken asset never leaves a half-seeded database
+            Log.e("DatabaseHelper", "Error importing seed assets", e);
+        } finally {
+            db.endTransaction();
+            insertMessage.close();
+            insertEvent.close();
+            insertPhoto.close();
+        }
+        if (committed && includeMessages) {
+            changeTracker.notifyChanged(TABLE_MESSAGES);
+        }
+        if (committed && includeTimeline) {
+            changeTracker.notifyChanged(TABLE_TIMELINE, TABLE_PHOTOS);
         }
+        Log.d("DatabaseHelper", "Seed import took " + (System.nanoTime() - start) / 1_000_000 + " ms");
     }
+
     // Insert daily message
     public long insertMessage(String messageText, String messageType, String date) {
         SQLiteDatabase db = this.getWritableDatabase();
@@ -182,55 +538,85 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         values.put(COLUMN_MESSAGE_TEXT, messageText);
         values.put(COLUMN_MESSAGE_TYPE, messageType);
         values.put(COLUMN_MESSAGE_DATE, date);
+        putEpochDay(values, COLUMN_MESSAGE_DAY, EpochDays.parse(date));
         values.put(COLUMN_IS_UNLOCKED, 0);
 
         long result = db.insert(TABLE_MESSAGES, null, values);
-        db.close();
+        if (result != -1) {
+            changeTracker.notifyChanged(TABLE_MESSAGES);
+        }
         return result;
     }
 
-    // Insert timeline event
+    // Insert timeline event - photos as comma-separated paths
     public long insertTimelineEvent(String date, String title, String description, String photos, String type) {
+        return insertTimelineEvent(date, title, description, TimelineEvent.parsePhotoList(photos), type);
+    }
+
+    // Insert timeline event together with its ordered photos
+    public long insertTimelineEvent(String date, String title, String description, List<String> photos, String type) {
         SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
         values.put(COLUMN_EVENT_DATE, date);
+        putEpochDay(values, COLUMN_EVENT_DAY, EpochDays.parse(date));
         values.put(COLUMN_EVENT_TITLE, title);
         values.put(COLUMN_EVENT_DESCRIPTION, description);
-        values.put(COLUMN_EVENT_PHOTOS, photos);
         values.put(COLUMN_EVENT_TYPE, type);
 
-        long result = db.insert(TABLE_TIMELINE, null, values);
-        db.close();
+        long result;
+        db.beginTransaction();
+        try {
+            result = db.insert(TABLE_TIMELINE, null, values);
+            if (result != -1 && !photos.isEmpty()) {
+                SQLiteStatement insertPhoto = compilePhotoInsert(db);
+                try {
+                    insertPhotos(insertPhoto, result, photos);
+                } finally {
+                    insertPhoto.close();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (result != -1) {
+            changeTracker.notifyChanged(TABLE_TIMELINE, TABLE_PHOTOS);
+        }
         return result;
     }
 
-    // Get today's message
-    public Message getTodaysMessage() {
-        SQLiteDatabase db = this.getReadableDatabase();
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-        Log.d("DatabaseHelper", "Looking for today's message for date: " + today);
+    private static SQLiteStatement compilePhotoInsert(SQLiteDatabase db) {
+        return db.compileStatement("INSERT INTO " + TABLE_PHOTOS + "("
+                + COLUMN_PHOTO_EVENT_ID + ", " + COLUMN_PHOTO_POSITION + ", " + COLUMN_PHOTO_PATH
+                + ") VALUES (?, ?, ?)");
+    }
 
-        Cursor cursor = db.query(TABLE_MESSAGES,
-                null,
-                COLUMN_MESSAGE_DATE + "=?",
-                new String[]{today},
-                null, null, null);
+    static void insertPhotos(SQLiteStatement insertPhoto, long eventId, List<String> photos) {
+        for (int position = 0; position < photos.size(); position++) {
+            insertPhoto.clearBindings();
+            insertPhoto.bindLong(1, eventId);
+            insertPhoto.bindLong(2, position);
+            insertPhoto.bindString(3, photos.get(position));
+            insertPhoto.executeInsert();
+        }
+    }
 
-        Message message = null;
-        if (cursor.moveToFirst()) {
-            message = new Message();
-            message.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_ID)));
-            message.setText(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_TEXT)));
-            message.setType(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_TYPE)));
-            message.setDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_DATE)));
-            message.setUnlocked(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_IS_UNLOCKED)) == 1);
-            Log.d("DatabaseHelper", "Found today's message: " + message.getText() + " (type: " + message.getType() + ")");
+    private static void putEpochDay(ContentValues values, String column, long epochDay) {
+        if (epochDay == EpochDays.NONE) {
+            values.putNull(column);
         } else {
-            Log.d("DatabaseHelper", "No message found for today (" + today + ")");
+            values.put(column, epochDay);
         }
+    }
 
-        cursor.close();
-        db.close();
+    // Get today's message - served from the in-memory cache when warm
+    public Message getTodaysMessage() {
+        Message message = todayCache.getTodaysMessage();
+        if (message != null) {
+            Log.d("DatabaseHelper", "Found today's message: " + message.getText() + " (type: " + message.getType() + ")");
+        } else {
+            Log.d("DatabaseHelper", "No message found for today (" + EpochDays.format(EpochDays.today()) + ")");
+        }
         return message;
     }
 
@@ -240,149 +626,346 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getReadableDatabase();
 
         Cursor cursor = db.query(TABLE_TIMELINE,
-                null, null, null, null, null,
-                COLUMN_EVENT_DATE + " ASC");
+                TIMELINE_COLUMNS, null, null, null, null,
+                COLUMN_EVENT_DAY + " ASC, " + COLUMN_TIMELINE_ID + " ASC");
 
         if (cursor.moveToFirst()) {
+            TimelineRowMapper mapper = new TimelineRowMapper(cursor);
             do {
-                TimelineEvent event = new TimelineEvent();
-                event.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_TIMELINE_ID)));
-                event.setDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_DATE)));
-                event.setTitle(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_TITLE)));
-                event.setDescription(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_DESCRIPTION)));
-                event.setPhotos(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_PHOTOS)));
-                event.setType(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_TYPE)));
-                events.add(event);
+                events.add(mapper.map(cursor));
             } while (cursor.moveToNext());
         }
 
         cursor.close();
-        db.close();
+        attachPhotos(db, events);
         return events;
     }
 
-    // Unlock today's message
-    public void unlockTodaysMessage() {
-        SQLiteDatabase db = this.getWritableDatabase();
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+    /**
+     * Get the next page of timeline events after the given (epochDay, id) position,
+     * ordered like {@link #getAllTimelineEvents()}. Uses the (event_day, id) index,
+     * so every page costs the same no matter how deep the user has scrolled.
+     * @param afterEpochDay Day of the last event already loaded, or {@link EpochDays#NONE} on the first page
+     * @param afterId Id of the last event already loaded, or 0 on the first page
+     */
+    public List<TimelineEvent> getTimelineEventsAfter(long afterEpochDay, int afterId, int limit) {
+        List<TimelineEvent> events = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
 
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_IS_UNLOCKED, 1);
+        // Events without a parseable date sort first (NULL < any day) and have no day to compare against
+        String selection;
+        String[] selectionArgs;
+        if (afterEpochDay == EpochDays.NONE) {
+            selection = "(" + COLUMN_EVENT_DAY + " IS NULL AND " + COLUMN_TIMELINE_ID + " > ?) OR "
+                    + COLUMN_EVENT_DAY + " IS NOT NULL";
+            selectionArgs = new String[]{Integer.toString(afterId)};
+        } else {
+            selection = COLUMN_EVENT_DAY + " > ? OR (" + COLUMN_EVENT_DAY + " = ? AND " + COLUMN_TIMELINE_ID + " > ?)";
+            String day = Long.toString(afterEpochDay);
+            selectionArgs = new String[]{day, day, Integer.toString(afterId)};
+        }
 
-        db.update(TABLE_MESSAGES, values, COLUMN_MESSAGE_DATE + "=?", new String[]{today});
-        db.close();
+        Cursor cursor = db.query(TABLE_TIMELINE,
+                TIMELINE_COLUMNS,
+                selection,
+                selectionArgs,
+                null, null,
+                COLUMN_EVENT_DAY + " ASC, " + COLUMN_TIMELINE_ID + " ASC",
+                Integer.toString(limit));
+
+        if (cursor.moveToFirst()) {
+            TimelineRowMapper mapper = new TimelineRowMapper(cursor);
+            do {
+                events.add(mapper.map(cursor));
+            } while (cursor.moveToNext());
+        }
+
+        cursor.close();
+        attachPhotos(db, events);
+        return events;
     }
 
-    // Sample data insertion - YOU'LL CUSTOMIZE THIS!
-    public void insertSampleData2() {
-        // Check if data already exists
+    /**
+     * Load timeline events by row id, e.g. the rows of a {@link ChangeSet}. Ids that no longer exist are skipped.
+     */
+    public List<TimelineEvent> getTimelineEventsByIds(Collection<Long> ids) {
+        List<TimelineEvent> events = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return events;
+        }
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_MESSAGES, null);
-        cursor.moveToFirst();
-        int count = cursor.getInt(0);
-        cursor.close();
-        db.close();
+        List<Long> idList = new ArrayList<>(ids);
+        for (int start = 0; start < idList.size(); start += MAX_SQL_VARIABLES) {
+            List<Long> chunk = idList.subList(start, Math.min(start + MAX_SQL_VARIABLES, idList.size()));
+            String[] args = new String[chunk.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = Long.toString(chunk.get(i));
+            }
+            Cursor cursor = db.query(TABLE_TIMELINE, TIMELINE_COLUMNS,
+                    COLUMN_TIMELINE_ID + " IN (" + placeholders(args.length) + ")", args,
+                    null, null, null);
+            if (cursor.moveToFirst()) {
+                TimelineRowMapper mapper = new TimelineRowMapper(cursor);
+                do {
+                    events.add(mapper.map(cursor));
+                } while (cursor.moveToNext());
+            }
+            cursor.close();
+        }
+        attachPhotos(db, events);
+        return events;
+    }
 
-        if (count > 0) return; // Data already exists
+    // Photos of a whole result in one indexed query per chunk, so no caller reads them row by row later
+    private static void attachPhotos(SQLiteDatabase db, List<TimelineEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<String>> photosByEvent = new HashMap<>();
+        for (int start = 0; start < events.size(); start += MAX_SQL_VARIABLES) {
+            List<TimelineEvent> chunk = events.subList(start, Math.min(start + MAX_SQL_VARIABLES, events.size()));
+            String[] args = new String[chunk.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = Integer.toString(chunk.get(i).getId());
+            }
+            // Served by the unique (event_id, position) index
+            Cursor cursor = db.query(TABLE_PHOTOS,
+                    new String[]{COLUMN_PHOTO_EVENT_ID, COLUMN_PHOTO_PATH},
+                    COLUMN_PHOTO_EVENT_ID + " IN (" + placeholders(args.length) + ")", args,
+                    null, null,
+                    COLUMN_PHOTO_EVENT_ID + " ASC, " + COLUMN_PHOTO_POSITION + " ASC");
+            while (cursor.moveToNext()) {
+                photosByEvent.computeIfAbsent(cursor.getInt(0), key -> new ArrayList<>()).add(cursor.getString(1));
+            }
+            cursor.close();
+        }
+        for (TimelineEvent event : events) {
+            List<String> photos = photosByEvent.get(event.getId());
+            event.setPhotoList(photos != null ? photos : new ArrayList<>());
+        }
+    }
+
+    /**
+     * Full-text search over messages that are already unlocked (today or earlier), best match first.
+     * Every word of the query is matched as a prefix, e.g. "urla" finds "Urlaub".
+     */
+    public List<Message> searchMessages(String query, int limit) {
+        String matchQuery = toPrefixMatchQuery(query);
+        if (matchQuery == null) {
+            return new ArrayList<>();
+        }
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        // Rank on docid + matchinfo only, then load the winning rows
+        Cursor matches = db.rawQuery("SELECT " + TABLE_MESSAGES_FTS + "." + COLUMN_FTS_DOCID
+                + ", matchinfo(" + TABLE_MESSAGES_FTS + ", 'pcx')"
+                + " FROM " + TABLE_MESSAGES_FTS + " JOIN " + TABLE_MESSAGES
+                + " ON " + TABLE_MESSAGES + "." + COLUMN_MESSAGE_ID + " = " + TABLE_MESSAGES_FTS + "." + COLUMN_FTS_DOCID
+                + " WHERE " + TABLE_MESSAGES_FTS + " MATCH ? AND " + TABLE_MESSAGES + "." + COLUMN_MESSAGE_DAY + " <= ?",
+                new String[]{matchQuery, Long.toString(EpochDays.today())});
+        long[] ids = rankMatches(matches, new double[]{1.0}, limit);
+
+        List<Message> messages = new ArrayList<>();
+        if (ids.length == 0) {
+            return messages;
+        }
+        Cursor cursor = db.query(TABLE_MESSAGES, MESSAGE_COLUMNS,
+                COLUMN_MESSAGE_ID + " IN (" + joinIds(ids) + ")",
+                null, null, null, null);
+        if (cursor.moveToFirst()) {
+            MessageRowMapper mapper = new MessageRowMapper(cursor);
+            do {
+                messages.add(mapper.map(cursor));
+            } while (cursor.moveToNext());
+        }
+        cursor.close();
 
-        // Sample messages - REPLACE WITH YOUR OWN!
-        String[] sampleMessages = {
-                "I love the way you laugh at my terrible jokes ❤️",
-                "Remember our first date? I was so nervous but you made everything perfect 🥰",
-                "Your smile brightens even my darkest days ☀️",
-                "I love how passionate you get about the things you care about 💕",
-                "Thank you for always believing in me, even when I don't believe in myself 🌟"
-        };
-
-        String[] messageTypes = {"love_note", "memory", "appreciation", "admiration", "gratitude"};
-
-        // Insert messages for the next 30 days
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        for (int i = 0; i < sampleMessages.length; i++) {
-            long timeMillis = System.currentTimeMillis() + (i * 24 * 60 * 60 * 1000L);
-            String date = sdf.format(new Date(timeMillis));
-            insertMessage(sampleMessages[i], messageTypes[i], date);
-        }
-
-        // Sample timeline events - CUSTOMIZE WITH YOUR RELATIONSHIP!
-        insertTimelineEvent("2024-01-01", "Our First Date ❤️",
-                "The day that started everything. I was so nervous but you made me feel comfortable instantly.",
-                "", "milestone");
-        insertTimelineEvent("2024-02-14", "First Valentine's Day 💕",
-                "Our first Valentine's together - you made it so special!",
-                "", "holiday");
-        insertTimelineEvent("2024-03-15", "First 'I Love You' 🥰",
-                "The moment I knew for sure - you're the one.",
-                "", "milestone");
+        messages.sort((a, b) -> Integer.compare(indexOf(ids, a.getId()), indexOf(ids, b.getId())));
+        return messages;
     }
 
-    public void insertSampleData() {
-        // Check if data already exists
+    /**
+     * Full-text search over timeline titles and descriptions, best match first.
+     * Title hits weigh more than description hits; every word is matched as a prefix.
+     */
+    public List<TimelineEvent> searchTimelineEvents(String query, int limit) {
+        String matchQuery = toPrefixMatchQuery(query);
+        if (matchQuery == null) {
+            return new ArrayList<>();
+        }
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_TIMELINE, null);
-        cursor.moveToFirst();
-        int count = cursor.getInt(0);
+
+        Cursor matches = db.rawQuery("SELECT " + COLUMN_FTS_DOCID + ", matchinfo(" + TABLE_TIMELINE_FTS + ", 'pcx')"
+                + " FROM " + TABLE_TIMELINE_FTS + " WHERE " + TABLE_TIMELINE_FTS + " MATCH ?",
+                new String[]{matchQuery});
+        long[] ids = rankMatches(matches, new double[]{TIMELINE_TITLE_WEIGHT, TIMELINE_DESCRIPTION_WEIGHT}, limit);
+
+        List<TimelineEvent> events = new ArrayList<>();
+        if (ids.length == 0) {
+            return events;
+        }
+        Cursor cursor = db.query(TABLE_TIMELINE, TIMELINE_COLUMNS,
+                COLUMN_TIMELINE_ID + " IN (" + joinIds(ids) + ")",
+                null, null, null, null);
+        if (cursor.moveToFirst()) {
+            TimelineRowMapper mapper = new TimelineRowMapper(cursor);
+            do {
+                events.add(mapper.map(cursor));
+            } while (cursor.moveToNext());
+        }
         cursor.close();
-        db.close();
 
-        if (count > 0) return; // Data already exists
+        events.sort((a, b) -> Integer.compare(indexOf(ids, a.getId()), indexOf(ids, b.getId())));
+        attachPhotos(db, events);
+        return events;
+    }
+
+    // Turn free text into an FTS query: every word becomes a prefix term, FTS operators are stripped
+    private static String toPrefixMatchQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : query.trim().split("\\s+")) {
+            StringBuilder term = new StringBuilder();
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    term.append(c);
+                }
+            }
+            if (term.length() > 0) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(term).append('*');
+            }
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
 
+    /**
+     * Score every match from a (docid, matchinfo 'pcx') cursor and return the ids of the best ones.
+     * Score per phrase and column: hits in this row / hits in all rows * column weight.
+     */
+    private static long[] rankMatches(Cursor matches, double[] columnWeights, int limit) {
+        List<long[]> scored = new ArrayList<>(); // {docid, score bits}
         try {
-            // Load JSON data from the assets folder
-            InputStream is = this.context.getAssets().open("timeline_events.json");
-            int size = is.available();
-            byte[] buffer = new byte[size];
-            is.read(buffer);
-            is.close();
-            String jsonString = new String(buffer, "UTF-8");
+            while (matches.moveToNext()) {
+                ByteBuffer info = ByteBuffer.wrap(matches.getBlob(1)).order(ByteOrder.nativeOrder());
+                int phraseCount = info.getInt(0);
+                int columnCount = info.getInt(4);
+                double score = 0;
+                for (int phrase = 0; phrase < phraseCount; phrase++) {
+                    for (int column = 0; column < columnCount; column++) {
+                        int offset = 8 + 12 * (phrase * columnCount + column);
+                        int hitsInRow = info.getInt(offset);
+                        int hitsInAllRows = info.getInt(offset + 4);
+                        if (hitsInRow > 0 && column < columnWeights.length) {
+                            score += (double) hitsInRow / hitsInAllRows * columnWeights[column];
+                        }
+                    }
+                }
+                scored.add(new long[]{matches.getLong(0), Double.doubleToLongBits(score)});
+            }
+        } finally {
+            matches.close();
+        }
 
-            // Parse JSON array
-            JSONArray timelineArray = new JSONArray(jsonString);
+        scored.sort((a, b) -> Double.compare(Double.longBitsToDouble(b[1]), Double.longBitsToDouble(a[1])));
+        int count = Math.min(limit, scored.size());
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = scored.get(i)[0];
+        }
+        return ids;
+    }
 
-            // Insert timeline events from JSON
-            for (int i = 0; i < timelineArray.length(); i++) {
-                JSONObject eventObject = timelineArray.getJSONObject(i);
-                String date = eventObject.getString("date");
-                String title = eventObject.getString("title");
-                String description = eventObject.getString("description");
-                String type = eventObject.getString("type");
-                insertTimelineEvent(date, title, description, "", type);
+    private static String joinIds(long[] ids) {
+        StringBuilder joined = new StringBuilder();
+        for (long id : ids) {
+            if (joined.length() > 0) {
+                joined.append(',');
             }
+            joined.append(id);
+        }
+        return joined.toString();
+    }
 
-        } catch (IOException e) {
-            Log.e("DBHelper", "Error reading timeline JSON file", e);
-        } catch (JSONException e) {
-            Log.e("DBHelper", "Error parsing timeline JSON", e);
+    private static String placeholders(int count) {
+        StringBuilder joined = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                joined.append(',');
+            }
+            joined.append('?');
         }
+        return joined.toString();
     }
 
-    private void loadMessagesFromFile() {
-        try {
-            InputStream is = context.getAssets().open("messages.txt");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-            String line;
-            int dayOffset = 0;
+    private static int indexOf(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return ids.length;
+    }
 
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+    // Unlock today's message
+    public void unlockTodaysMessage() {
+        SQLiteDatabase db = this.getWritableDatabase();
 
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length == 2) {
-                    String messageType = parts[0];
-                    String messageText = parts[1];
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_IS_UNLOCKED, 1);
 
-                    // Calculate date (today + dayOffset)
-                    long timeMillis = System.currentTimeMillis() + (dayOffset * 24 * 60 * 60 * 1000L);
-                    String date = sdf.format(new Date(timeMillis));
+        // Only a message that is still locked counts as a change
+        int updated = db.update(TABLE_MESSAGES, values,
+                COLUMN_MESSAGE_DAY + "=? AND " + COLUMN_IS_UNLOCKED + "=0",
+                new String[]{Long.toString(EpochDays.today())});
+        if (updated > 0) {
+            changeTracker.notifyChanged(TABLE_MESSAGES);
+        }
+    }
 
-                    insertMessage(messageText, messageType, date);
-                    dayOffset++;
-                }
-            }
-            reader.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Get all messages whose unlock day lies between fromEpochDay and toEpochDay (inclusive),
+     * e.g. today and the next 7 days.
+     */
+    public List<Message> getMessagesBetweenDays(long fromEpochDay, long toEpochDay) {
+        List<Message> messages = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        Cursor cursor = db.query(TABLE_MESSAGES,
+                MESSAGE_COLUMNS,
+                COLUMN_MESSAGE_DAY + " BETWEEN ? AND ?",
+                new String[]{Long.toString(fromEpochDay), Long.toString(toEpochDay)},
+                null, null,
+                COLUMN_MESSAGE_DAY + " ASC");
+
+        if (cursor.moveToFirst()) {
+            MessageRowMapper mapper = new MessageRowMapper(cursor);
+            do {
+                messages.add(mapper.map(cursor));
+            } while (cursor.moveToNext());
         }
+
+        cursor.close();
+        return messages;
+    }
+
+    public void insertSampleData() {
+        // Check if data already exists
+        SQLiteDatabase db = this.getWritableDatabase();
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_TIMELINE, null);
+        cursor.moveToFirst();
+        int count = cursor.getInt(0);
+        cursor.close();
+
+        if (count > 0) return; // Data already exists
+
+        // Load timeline events from the assets folder
+        importSeedAssets(db, false, true);
     }
 
     /**
@@ -392,13 +975,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.query(TABLE_MESSAGES,
                 new String[]{COLUMN_MESSAGE_ID},
-                COLUMN_MESSAGE_DATE + "=?",
-                new String[]{date},
-                null, null, null);
+                COLUMN_MESSAGE_DAY + "=?",
+                new String[]{Long.toString(EpochDays.parse(date))},
+                null, null, null, "1");
 
-        boolean exists = cursor.getCount() > 0;
+        boolean exists = cursor.moveToFirst();
         cursor.close();
-        db.close();
         return exists;
     }
 
@@ -415,11 +997,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 new String[]{COLUMN_TIMELINE_ID},
                 COLUMN_EVENT_DATE + "=? AND " + COLUMN_EVENT_TITLE + "=?",
                 new String[]{date, title},
-                null, null, null);
+                null, null, null, "1");
 
-        boolean exists = cursor.getCount() > 0;
+        boolean exists = cursor.moveToFirst();
         cursor.close();
-        db.close();
         return exists;
     }
 
@@ -432,7 +1013,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         cursor.moveToFirst();
         int count = cursor.getInt(0);
         cursor.close();
-        db.close();
         return count;
     }
     public List<Message> getAllMessages() {
@@ -440,23 +1020,17 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getReadableDatabase();
 
         Cursor cursor = db.query(TABLE_MESSAGES,
-                null, null, null, null, null,
-                COLUMN_MESSAGE_DATE + " ASC");
+                MESSAGE_COLUMNS, null, null, null, null,
+                COLUMN_MESSAGE_DAY + " ASC");
 
         if (cursor.moveToFirst()) {
+            MessageRowMapper mapper = new MessageRowMapper(cursor);
             do {
-                Message message = new Message();
-                message.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_ID)));
-                message.setText(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_TEXT)));
-                message.setType(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_TYPE)));
-                message.setDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_MESSAGE_DATE)));
-                message.setUnlocked(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_IS_UNLOCKED)) == 1);
-                messages.add(message);
+                messages.add(mapper.map(cursor));
             } while (cursor.moveToNext());
         }
 
         cursor.close();
-        db.close();
         return messages;
     }
     
@@ -465,13 +1039,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.query(TABLE_MESSAGES,
                 new String[]{COLUMN_MESSAGE_ID},
-                COLUMN_MESSAGE_TEXT + "=? AND " + COLUMN_MESSAGE_DATE + "=?",
-                new String[]{text, unlockDate},
-                null, null, null);
+                COLUMN_MESSAGE_TEXT + "=? AND " + COLUMN_MESSAGE_DAY + "=?",
+                new String[]{text, Long.toString(EpochDays.parse(unlockDate))},
+                null, null, null, "1");
 
-        boolean exists = cursor.getCount() > 0;
+        boolean exists = cursor.moveToFirst();
         cursor.close();
-        db.close();
         return exists;
     }
     
@@ -486,22 +1059,624 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     
     public boolean addTimelineEvent(TimelineEvent event) {
         long result = insertTimelineEvent(event.getDate(), event.getTitle(), 
-            event.getDescription(), event.getPhotos(), event.getType());
+            event.getDescription(), event.getPhotoList(), event.getType());
         return result != -1;
     }
     
-    // Firebase complete sync methods
-    public void clearAllMessages() {
+    /**
+     * Replace all messages with the given list in a single transaction.
+     * Readers never observe an empty table and the whole swap costs one commit.
+     * Days the user already unlocked stay unlocked.
+     * @return Number of messages inserted
+     */
+    public int replaceAllMessages(List<Message> messages) {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_MESSAGES, null, null);
-        db.close();
-        Log.d("DatabaseHelper", "All messages cleared for Firebase sync");
+        int insertedCount = 0;
+
+        // Two messages for the same day in one payload collapse onto the last copy
+        Map<Long, Message> byDay = new LinkedHashMap<>();
+        List<Message> undated = new ArrayList<>();
+        for (Message message : messages) {
+            long day = dayOf(message.getEpochDay(), message.getUnlockDate());
+            if (day == EpochDays.NONE) {
+                undated.add(message);
+            } else {
+                byDay.put(day, message);
+            }
+        }
+
+        db.beginTransaction();
+        try {
+            // The unlocked flag belongs to the device, not to the payload
+            Set<Long> unlockedDays = new HashSet<>();
+            Cursor cursor = db.query(TABLE_MESSAGES, new String[]{COLUMN_MESSAGE_DAY},
+                    COLUMN_IS_UNLOCKED + " = 1 AND " + COLUMN_MESSAGE_DAY + " IS NOT NULL",
+                    null, null, null, null);
+            while (cursor.moveToNext()) {
+                unlockedDays.add(cursor.getLong(0));
+            }
+            cursor.close();
+
+            db.delete(TABLE_MESSAGES, null, null);
+
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_MESSAGES + "("
+                    + COLUMN_MESSAGE_TEXT + ", " + COLUMN_MESSAGE_TYPE + ", "
+                    + COLUMN_MESSAGE_DATE + ", " + COLUMN_MESSAGE_DAY + ", "
+                    + COLUMN_MESSAGE_HASH + ", " + COLUMN_IS_UNLOCKED + ") VALUES (?, ?, ?, ?, ?, ?)");
+            try {
+                for (Map.Entry<Long, Message> entry : byDay.entrySet()) {
+                    bindMessage(insert, entry.getValue(), entry.getKey(), unlockedDays.contains(entry.getKey()));
+                    insert.executeInsert();
+                    insertedCount++;
+                }
+                for (Message message : undated) {
+                    bindMessage(insert, message, EpochDays.NONE, false);
+                    insert.executeInsert();
+                    insertedCount++;
+                }
+            } finally {
+                insert.close();
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        changeTracker.notifyChanged(TABLE_MESSAGES);
+
+        Log.d("DatabaseHelper", "Replaced all messages with " + insertedCount + " rows");
+        return insertedCount;
     }
-    
-    public void clearAllTimelineEvents() {
+
+    /**
+     * Replace all timeline events with the given list in a single transaction.
+     * @return Number of timeline events inserted
+     */
+    public int replaceAllTimelineEvents(List<TimelineEvent> events) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int insertedCount = 0;
+
+        // Duplicate date + title pairs in one payload collapse onto the last copy
+        Map<String, TimelineEvent> byKey = new LinkedHashMap<>();
+        for (TimelineEvent event : events) {
+            byKey.put(timelineKey(event.getDate(), event.getTitle()), event);
+        }
+
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_TIMELINE, null, null);
+
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_TIMELINE + "("
+                    + COLUMN_EVENT_DATE + ", " + COLUMN_EVENT_TITLE + ", "
+                    + COLUMN_EVENT_DESCRIPTION + ", " + COLUMN_EVENT_TYPE + ", "
+                    + COLUMN_EVENT_DAY + ", " + COLUMN_EVENT_HASH + ") VALUES (?, ?, ?, ?, ?, ?)");
+            SQLiteStatement insertPhoto = compilePhotoInsert(db);
+            try {
+                for (TimelineEvent event : byKey.values()) {
+                    insert.clearBindings();
+                    insert.bindString(1, event.getDate());
+                    insert.bindString(2, event.getTitle());
+                    bindNullableString(insert, 3, event.getDescription());
+                    bindNullableString(insert, 4, event.getType());
+                    bindEpochDay(insert, 5, dayOf(event.getEpochDay(), event.getDate()));
+                    insert.bindLong(6, contentHash(event));
+                    long eventId = insert.executeInsert();
+                    insertPhotos(insertPhoto, eventId, event.getPhotoList());
+                    insertedCount++;
+                }
+            } finally {
+                insert.close();
+                insertPhoto.close();
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        changeTracker.notifyChanged(TABLE_TIMELINE, TABLE_PHOTOS);
+
+        Log.d("DatabaseHelper", "Replaced all timeline events with " + insertedCount + " rows");
+        return insertedCount;
+    }
+
+    private static void bindMessage(SQLiteStatement insert, Message message, long day, boolean unlocked) {
+        insert.clearBindings();
+        insert.bindString(1, message.getText());
+        bindNullableString(insert, 2, message.getType());
+        bindNullableString(insert, 3, message.getUnlockDate());
+        bindEpochDay(insert, 4, day);
+        insert.bindLong(5, contentHash(message));
+        insert.bindLong(6, unlocked ? 1 : 0);
+    }
+
+    /**
+     * Apply a synced message payload keyed on the message day, in one transaction.
+     * Existing keys and hashes are read with a single query up front, so each record then costs
+     * at most one statement: an INSERT for a new day, an UPDATE for changed content, nothing otherwise.
+     * Only the day range covered by the payload is read, so a large sync can be applied in batches.
+     * Messages whose date cannot be parsed have no key and are skipped.
+     */
+    public UpsertResult upsertMessages(List<Message> messages) {
+        return mergeMessages(messages, EpochDays.NONE, EpochDays.NONE);
+    }
+
+    /**
+     * Make the stored messages from fromEpochDay to toEpochDay (inclusive) match the given payload:
+     * upsert like {@link #upsertMessages} and delete window rows the payload no longer contains.
+     * Rows outside the window are neither read nor touched, so the cost only depends on the window size.
+     */
+    public UpsertResult mergeMessageWindow(long fromEpochDay, long toEpochDay, List<Message> messages) {
+        return mergeMessages(messages, fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * Make all stored messages match a complete payload, e.g. on the first sync: like
+     * {@link #mergeMessageWindow} over every day, so only differing rows are written.
+     * Messages without a parseable date are left alone.
+     */
+    public UpsertResult mirrorMessages(List<Message> messages) {
+        return mergeMessages(messages, Long.MIN_VALUE + 1, Long.MAX_VALUE);
+    }
+
+    // Without a window (NONE) nothing is deleted and the payload's own day range is the key space
+    private UpsertResult mergeMessages(List<Message> messages, long fromEpochDay, long toEpochDay) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        boolean windowed = fromEpochDay != EpochDays.NONE;
+        long firstDay = fromEpochDay;
+        long lastDay = toEpochDay;
+        if (!windowed) {
+            firstDay = Long.MAX_VALUE;
+            lastDay = Long.MIN_VALUE;
+            for (Message message : messages) {
+                long day = dayOf(message.getEpochDay(), message.getUnlockDate());
+                if (day != EpochDays.NONE) {
+                    firstDay = Math.min(firstDay, day);
+                    lastDay = Math.max(lastDay, day);
+                }
+            }
+        }
+        int unchanged = 0;
+        // Changed days, reported to change-set observers after the commit
+        Set<Long> insertedDays = new LinkedHashSet<>();
+        Set<Long> updatedDays = new LinkedHashSet<>();
+        Set<Long> deletedDays = new LinkedHashSet<>();
+
+        db.beginTransaction();
+        try {
+            // day -> content hash of the stored row (null while it has none yet)
+            Map<Long, Long> storedHashes = new HashMap<>();
+            if (firstDay <= lastDay) {
+                Cursor cursor = db.query(TABLE_MESSAGES, new String[]{COLUMN_MESSAGE_DAY, COLUMN_MESSAGE_HASH},
+                        COLUMN_MESSAGE_DAY + " BETWEEN ? AND ?",
+                        new String[]{Long.toString(firstDay), Long.toString(lastDay)},
+                        null, null, null);
+                while (cursor.moveToNext()) {
+                    storedHashes.put(cursor.getLong(0), cursor.isNull(1) ? null : cursor.getLong(1));
+                }
+                cursor.close();
+            }
+
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_MESSAGES + "("
+                    + COLUMN_MESSAGE_TEXT + ", " + COLUMN_MESSAGE_TYPE + ", " + COLUMN_MESSAGE_DATE + ", "
+                    + COLUMN_MESSAGE_DAY + ", " + COLUMN_MESSAGE_HASH + ", " + COLUMN_IS_UNLOCKED
+                    + ") VALUES (?, ?, ?, ?, ?, 0)");
+            Set<Long> payloadDays = new HashSet<>();
+            // The unlocked flag belongs to the device and survives content updates
+            SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_MESSAGES + " SET "
+                    + COLUMN_MESSAGE_TEXT + " = ?, " + COLUMN_MESSAGE_TYPE + " = ?, "
+                    + COLUMN_MESSAGE_DATE + " = ?, " + COLUMN_MESSAGE_HASH + " = ?"
+                    + " WHERE " + COLUMN_MESSAGE_DAY + " = ?");
+            try {
+                for (Message message : messages) {
+                    long day = dayOf(message.getEpochDay(), message.getUnlockDate());
+                    if (day == EpochDays.NONE) {
+                        Log.w("DatabaseHelper", "Skipping message without a valid date: " + message.getUnlockDate());
+                        continue;
+                    }
+                    if (windowed && (day < fromEpochDay || day > toEpochDay)) {
+                        continue; // Outside the window this merge owns
+                    }
+                    long hash = contentHash(message);
+                    payloadDays.add(day);
+                    boolean exists = storedHashes.containsKey(day);
+                    Long storedHash = storedHashes.put(day, hash);
+                    if (exists && storedHash != null && storedHash == hash) {
+                        unchanged++;
+                    } else if (exists) {
+                        update.clearBindings();
+                        update.bindString(1, message.getText());
+                        bindNullableString(update, 2, message.getType());
+                        bindNullableString(update, 3, message.getUnlockDate());
+                        update.bindLong(4, hash);
+                        update.bindLong(5, day);
+                        update.executeUpdateDelete();
+                        if (!insertedDays.contains(day)) {
+                            updatedDays.add(day); // A day repeated in the payload is still new to observers
+                        }
+                    } else {
+                        insert.clearBindings();
+                        insert.bindString(1, message.getText());
+                        bindNullableString(insert, 2, message.getType());
+                        bindNullableString(insert, 3, message.getUnlockDate());
+                        insert.bindLong(4, day);
+                        insert.bindLong(5, hash);
+                        insert.executeInsert();
+                        insertedDays.add(day);
+                    }
+                }
+            } finally {
+                insert.close();
+                update.close();
+            }
+
+            if (windowed) {
+                // Window days the server no longer has were deleted upstream
+                SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_MESSAGES
+                        + " WHERE " + COLUMN_MESSAGE_DAY + " = ?");
+                try {
+                    for (Long day : storedHashes.keySet()) {
+                        if (!payloadDays.contains(day)) {
+                            delete.bindLong(1, day);
+                            if (delete.executeUpdateDelete() > 0) {
+                                deletedDays.add(day);
+                            }
+                        }
+                    }
+                } finally {
+                    delete.close();
+                }
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        UpsertResult result = new UpsertResult(insertedDays.size(), updatedDays.size(), unchanged, deletedDays.size());
+        if (result.hasChanges()) {
+            changeTracker.notifyChanged(new ChangeSet(TABLE_MESSAGES, insertedDays, updatedDays, deletedDays));
+        }
+        Log.d("DatabaseHelper", "Merged messages: " + result);
+        return result;
+    }
+
+    /**
+     * Apply a synced timeline payload keyed on date + title, in one transaction.
+     * Works like {@link #upsertMessages}; a changed event also gets its photo rows rewritten.
+     * Only stored events on the payload's dates are read, so a large sync can be applied in batches.
+     */
+    public UpsertResult upsertTimelineEvents(List<TimelineEvent> events) {
+        return mergeTimelineEvents(events, false);
+    }
+
+    /**
+     * Make the stored timeline match a complete payload, e.g. on the first sync:
+     * upsert like {@link #upsertTimelineEvents} and delete events the payload no longer contains.
+     */
+    public UpsertResult mirrorTimelineEvents(List<TimelineEvent> events) {
+        return mergeTimelineEvents(events, true);
+    }
+
+    // A mirror needs every stored key to find the missing ones, an upsert only those on the payload's dates
+    private UpsertResult mergeTimelineEvents(List<TimelineEvent> events, boolean deleteMissing) {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_TIMELINE, null, null);
-        db.close();
-        Log.d("DatabaseHelper", "All timeline events cleared for Firebase sync");
+        int unchanged = 0;
+        // Changed row ids, reported to change-set observers after the commit
+        Set<Long> insertedIds = new LinkedHashSet<>();
+        Set<Long> updatedIds = new LinkedHashSet<>();
+        Set<Long> deletedIds = new LinkedHashSet<>();
+
+        db.beginTransaction();
+        try {
+            // date + title -> row id and content hash of the stored row (null while it has none yet)
+            Map<String, Long> storedIds = new HashMap<>();
+            Map<String, Long> storedHashes = new HashMap<>();
+            String[] keyColumns = {COLUMN_TIMELINE_ID, COLUMN_EVENT_DATE, COLUMN_EVENT_TITLE, COLUMN_EVENT_HASH};
+            List<Cursor> cursors = new ArrayList<>();
+            if (deleteMissing) {
+                cursors.add(db.query(TABLE_TIMELINE, keyColumns, null, null, null, null, null));
+            } else {
+                Set<String> dates = new HashSet<>();
+                for (TimelineEvent event : events) {
+                    dates.add(event.getDate());
+                }
+                // Served by the unique (date, title) index; chunked to stay below SQLite's variable limit
+                List<String> dateList = new ArrayList<>(dates);
+                for (int start = 0; start < dateList.size(); start += MAX_SQL_VARIABLES) {
+                    List<String> chunk = dateList.subList(start, Math.min(start + MAX_SQL_VARIABLES, dateList.size()));
+                    cursors.add(db.query(TABLE_TIMELINE, keyColumns,
+                            COLUMN_EVENT_DATE + " IN (" + placeholders(chunk.size()) + ")",
+                            chunk.toArray(new String[0]), null, null, null));
+                }
+            }
+            for (Cursor cursor : cursors) {
+                while (cursor.moveToNext()) {
+                    String key = timelineKey(cursor.getString(1), cursor.getString(2));
+                    storedIds.put(key, cursor.getLong(0));
+                    storedHashes.put(key, cursor.isNull(3) ? null : cursor.getLong(3));
+                }
+                cursor.close();
+            }
+            Set<String> payloadKeys = new HashSet<>();
+
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_TIMELINE + "("
+                    + COLUMN_EVENT_DATE + ", " + COLUMN_EVENT_TITLE + ", " + COLUMN_EVENT_DESCRIPTION + ", "
+                    + COLUMN_EVENT_TYPE + ", " + COLUMN_EVENT_DAY + ", " + COLUMN_EVENT_HASH
+                    + ") VALUES (?, ?, ?, ?, ?, ?)");
+            SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_TIMELINE + " SET "
+                    + COLUMN_EVENT_DESCRIPTION + " = ?, " + COLUMN_EVENT_TYPE + " = ?, "
+                    + COLUMN_EVENT_HASH + " = ? WHERE " + COLUMN_TIMELINE_ID + " = ?");
+            SQLiteStatement deletePhotos = db.compileStatement("DELETE FROM " + TABLE_PHOTOS
+                    + " WHERE " + COLUMN_PHOTO_EVENT_ID + " = ?");
+            SQLiteStatement insertPhoto = compilePhotoInsert(db);
+            try {
+                for (TimelineEvent event : events) {
+                    String key = timelineKey(event.getDate(), event.getTitle());
+                    payloadKeys.add(key);
+                    long hash = contentHash(event);
+                    Long eventId = storedIds.get(key);
+                    Long storedHash = storedHashes.put(key, hash);
+                    if (eventId != null && storedHash != null && storedHash == hash) {
+                        unchanged++;
+                    } else if (eventId != null) {
+                        update.clearBindings();
+                        bindNullableString(update, 1, event.getDescription());
+                        bindNullableString(update, 2, event.getType());
+                        update.bindLong(3, hash);
+                        update.bindLong(4, eventId);
+                        update.executeUpdateDelete();
+
+                        deletePhotos.bindLong(1, eventId);
+                        deletePhotos.executeUpdateDelete();
+                        insertPhotos(insertPhoto, eventId, event.getPhotoList());
+                        if (!insertedIds.contains(eventId)) {
+                            updatedIds.add(eventId);
+                        }
+                    } else {
+                        insert.clearBindings();
+                        insert.bindString(1, event.getDate());
+                        insert.bindString(2, event.getTitle());
+                        bindNullableString(insert, 3, event.getDescription());
+                        bindNullableString(insert, 4, event.getType());
+                        bindEpochDay(insert, 5, dayOf(event.getEpochDay(), event.getDate()));
+                        insert.bindLong(6, hash);
+                        long newId = insert.executeInsert();
+                        insertPhotos(insertPhoto, newId, event.getPhotoList());
+                        storedIds.put(key, newId);
+                        insertedIds.add(newId);
+                    }
+                }
+            } finally {
+                insert.close();
+                update.close();
+                deletePhotos.close();
+                insertPhoto.close();
+            }
+
+            if (deleteMissing) {
+                // Photo rows go with their event through the foreign key cascade
+                SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_TIMELINE
+                        + " WHERE " + COLUMN_TIMELINE_ID + " = ?");
+                try {
+                    for (Map.Entry<String, Long> stored : storedIds.entrySet()) {
+                        if (!payloadKeys.contains(stored.getKey())) {
+                            delete.bindLong(1, stored.getValue());
+                            if (delete.executeUpdateDelete() > 0) {
+                                deletedIds.add(stored.getValue());
+                            }
+                        }
+                    }
+                } finally {
+                    delete.close();
+                }
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        UpsertResult result = new UpsertResult(insertedIds.size(), updatedIds.size(), unchanged, deletedIds.size());
+        if (result.hasChanges()) {
+            changeTracker.notifyChanged(new ChangeSet(TABLE_TIMELINE, insertedIds, updatedIds, deletedIds),
+                    TABLE_PHOTOS);
+        }
+        Log.d("DatabaseHelper", "Merged timeline events: " + result);
+        return result;
+    }
+
+    /**
+     * Delete the messages for the given dates, e.g. for sync tombstones.
+     * @return Number of deleted messages
+     */
+    public int deleteMessagesForDates(Collection<String> dates) {
+        if (dates.isEmpty()) {
+            return 0;
+        }
+        SQLiteDatabase db = this.getWritableDatabase();
+        Set<Long> deletedDays = new LinkedHashSet<>();
+
+        db.beginTransaction();
+        try {
+            SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_MESSAGES
+                    + " WHERE " + COLUMN_MESSAGE_DAY + " = ?");
+            try {
+                for (String date : dates) {
+                    long day = EpochDays.parse(date);
+                    if (day == EpochDays.NONE) {
+                        continue;
+                    }
+                    delete.bindLong(1, day);
+                    if (delete.executeUpdateDelete() > 0) {
+                        deletedDays.add(day);
+                    }
+                }
+            } finally {
+                delete.close();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        if (!deletedDays.isEmpty()) {
+            changeTracker.notifyChanged(new ChangeSet(TABLE_MESSAGES,
+                    Collections.emptySet(), Collections.emptySet(), deletedDays));
+        }
+        return deletedDays.size();
+    }
+
+    /**
+     * Delete timeline events matching the date + title of the given events, e.g. for sync tombstones.
+     * @return Number of deleted events
+     */
+    public int deleteTimelineEvents(List<TimelineEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        SQLiteDatabase db = this.getWritableDatabase();
+        Set<Long> deletedIds = new LinkedHashSet<>();
+
+        db.beginTransaction();
+        try {
+            // Looked up first, so observers learn which rows are gone
+            SQLiteStatement findId = db.compileStatement("SELECT " + COLUMN_TIMELINE_ID + " FROM " + TABLE_TIMELINE
+                    + " WHERE " + COLUMN_EVENT_DATE + " = ? AND " + COLUMN_EVENT_TITLE + " = ?");
+            // Photo rows go with their event through the foreign key cascade
+            SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_TIMELINE
+                    + " WHERE " + COLUMN_TIMELINE_ID + " = ?");
+            try {
+                for (TimelineEvent event : events) {
+                    long eventId;
+                    try {
+                        findId.bindString(1, event.getDate());
+                        findId.bindString(2, event.getTitle());
+                        eventId = findId.simpleQueryForLong();
+                    } catch (SQLiteDoneException e) {
+                        continue; // Not stored
+                    }
+                    delete.bindLong(1, eventId);
+                    if (delete.executeUpdateDelete() > 0) {
+                        deletedIds.add(eventId);
+                    }
+                }
+            } finally {
+                findId.close();
+                delete.close();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        if (!deletedIds.isEmpty()) {
+            changeTracker.notifyChanged(new ChangeSet(TABLE_TIMELINE,
+                    Collections.emptySet(), Collections.emptySet(), deletedIds), TABLE_PHOTOS);
+        }
+        return deletedIds.size();
+    }
+
+    private static String timelineKey(String date, String title) {
+        return date + '\u0000' + title;
+    }
+
+    // The natural key is not part of the hash - it identifies the row instead
+    private static long contentHash(Message message) {
+        return ContentHash.of(message.getType(), message.getText());
+    }
+
+    private static long contentHash(TimelineEvent event) {
+        return ContentHash.of(event.getPhotoList(), event.getDescription(), event.getType());
+    }
+
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static void bindEpochDay(SQLiteStatement statement, int index, long epochDay) {
+        if (epochDay == EpochDays.NONE) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, epochDay);
+        }
+    }
+
+    // Models built by the sync code already carry the parsed day - only parse when they don't
+    private static long dayOf(long epochDay, String date) {
+        return epochDay != EpochDays.NONE ? epochDay : EpochDays.parse(date);
+    }
+
+    private static long getEpochDay(Cursor cursor, int columnIndex) {
+        return cursor.isNull(columnIndex) ? EpochDays.NONE : cursor.getLong(columnIndex);
+    }
+
+    /**
+     * Maps message rows to {@link Message} objects. Column indices are resolved once per cursor;
+     * columns missing from the projection are left at their defaults.
+     */
+    private static final class MessageRowMapper {
+        private final int idIndex;
+        private final int textIndex;
+        private final int typeIndex;
+        private final int dateIndex;
+        private final int dayIndex;
+        private final int unlockedIndex;
+
+        MessageRowMapper(Cursor cursor) {
+            idIndex = cursor.getColumnIndex(COLUMN_MESSAGE_ID);
+            textIndex = cursor.getColumnIndex(COLUMN_MESSAGE_TEXT);
+            typeIndex = cursor.getColumnIndex(COLUMN_MESSAGE_TYPE);
+            dateIndex = cursor.getColumnIndex(COLUMN_MESSAGE_DATE);
+            dayIndex = cursor.getColumnIndex(COLUMN_MESSAGE_DAY);
+            unlockedIndex = cursor.getColumnIndex(COLUMN_IS_UNLOCKED);
+        }
+
+        Message map(Cursor cursor) {
+            Message message = new Message();
+            if (idIndex != -1) message.setId(cursor.getInt(idIndex));
+            if (textIndex != -1) message.setText(cursor.getString(textIndex));
+            if (typeIndex != -1) message.setType(cursor.getString(typeIndex));
+            if (dateIndex != -1) message.setDate(cursor.getString(dateIndex));
+            if (dayIndex != -1) message.setEpochDay(getEpochDay(cursor, dayIndex));
+            if (unlockedIndex != -1) message.setUnlocked(cursor.getInt(unlockedIndex) == 1);
+            return message;
+        }
+    }
+
+    /**
+     * Maps timeline rows to {@link TimelineEvent} objects. Column indices are resolved once per cursor;
+     * columns missing from the projection are left at their defaults.
+     */
+    private static final class TimelineRowMapper {
+        private final int idIndex;
+        private final int dateIndex;
+        private final int dayIndex;
+        private final int titleIndex;
+        private final int descriptionIndex;
+        private final int typeIndex;
+
+        TimelineRowMapper(Cursor cursor) {
+            idIndex = cursor.getColumnIndex(COLUMN_TIMELINE_ID);
+            dateIndex = cursor.getColumnIndex(COLUMN_EVENT_DATE);
+            dayIndex = cursor.getColumnIndex(COLUMN_EVENT_DAY);
+            titleIndex = cursor.getColumnIndex(COLUMN_EVENT_TITLE);
+            descriptionIndex = cursor.getColumnIndex(COLUMN_EVENT_DESCRIPTION);
+            typeIndex = cursor.getColumnIndex(COLUMN_EVENT_TYPE);
+        }
+
+        TimelineEvent map(Cursor cursor) {
+            TimelineEvent event = new TimelineEvent();
+            if (idIndex != -1) event.setId(cursor.getInt(idIndex));
+            if (dateIndex != -1) event.setDate(cursor.getString(dateIndex));
+            if (dayIndex != -1) event.setEpochDay(getEpochDay(cursor, dayIndex));
+            if (titleIndex != -1) event.setTitle(cursor.getString(titleIndex));
+            if (descriptionIndex != -1) event.setDescription(cursor.getString(descriptionIndex));
+            if (typeIndex != -1) event.setType(cursor.getString(typeIndex));
+            return event;
+        }
     }
-}
\ No newline at end of file
+}
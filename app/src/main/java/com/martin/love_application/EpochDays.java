@@ -0,0 +1,68 @@
+package com.martin.love_application;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Conversion between "yyyy-MM-dd" date strings and integer epoch days
+ * (days since 1970-01-01), which is how dates are stored and queried in the database.
+ */
+public final class EpochDays {
+
+    // Marker for dates that are missing or could not be parsed
+    public static final long NONE = Long.MIN_VALUE;
+
+    private EpochDays() {}
+
+    /**
+     * Today's date in the device's time zone as an epoch day.
+     */
+    public static long today() {
+        return LocalDate.now().toEpochDay();
+    }
+
+    /**
+     * Parse a "yyyy-MM-dd" date or an ISO timestamp such as "2025-09-03T10:30:00Z".
+     * Only the leading date part is read, without creating any formatter.
+     * @return The epoch day, or {@link #NONE} if the string is not a valid date
+     */
+    public static long parse(String date) {
+        if (date == null || date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return NONE;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return NONE;
+        }
+        try {
+            return LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Format an epoch day as "yyyy-MM-dd".
+     * @return The formatted date, or null for {@link #NONE}
+     */
+    public static String format(long epochDay) {
+        if (epochDay == NONE) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
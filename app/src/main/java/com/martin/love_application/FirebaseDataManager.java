@@ -3,34 +3,120 @@ package com.martin.love_application;
 import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class FirebaseDataManager {
     
     private static final String TAG = "FirebaseDataManager";
+
+    // Delta sync - records carry updated_at (server timestamp) and deleted: true marks a tombstone
+    private static final String PREFS_NAME = "love_app_prefs";
+    private static final String KEY_MESSAGES_HIGH_WATER = "firebase_messages_updated_at";
+    private static final String KEY_TIMELINE_HIGH_WATER = "firebase_timeline_updated_at";
+    // Delta sync matches rows by their natural key, so a record whose date or title changed upstream
+    // leaves its old row behind - a periodic full mirror removes those
+    private static final String KEY_MESSAGES_FULL_SYNC = "firebase_messages_full_sync";
+    private static final String KEY_TIMELINE_FULL_SYNC = "firebase_timeline_full_sync";
+    private static final long FULL_SYNC_INTERVAL_MS = 7L * 24 * 60 * 60 * 1000;
+    private static final String FIELD_UPDATED_AT = "updated_at";
+    private static final String FIELD_DELETED = "deleted";
+
+    // Windowed message sync - only unlock dates around today are fetched
+    private static final String KEY_MESSAGE_WINDOW = "firebase_message_window";
+    private static final int LOOK_BEHIND_DAYS = 7;
+    private static final int LOOK_AHEAD_DAYS = 30;
+    private static final String FIELD_UNLOCK_DATE = "unlock_date";
+
+    // Live mode - child listeners while the app is in the foreground, changes written in short batches
+    private static final String KEY_LIVE_SYNC = "firebase_live_sync";
+    private static final long LIVE_BATCH_DELAY_MS = 500;
+
+    // Firebase delivers snapshots on the main thread; mapping and writes run here instead.
+    // A single thread shared by all instances keeps syncs and live batches in arrival order.
+    private static final ExecutorService INGEST_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "firebase-ingest");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+
     private Context context;
     private DatabaseHelper dbHelper;
+    private SyncMetrics metrics;
     private FirebaseDatabase firebaseDatabase;
     private DatabaseReference messagesRef;
     private DatabaseReference timelineRef;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable liveFlush = this::flushLiveChanges;
+    private Query liveMessagesQuery;
+    private Query liveTimelineQuery;
+    private ChildEventListener liveMessagesListener;
+    private ChildEventListener liveTimelineListener;
+    private LiveSyncListener liveSyncListener;
+    private boolean liveFlushScheduled;
+    // Pending live changes, keyed like the local rows so repeated events for a record collapse into one write
+    private final Map<String, Message> pendingMessages = new LinkedHashMap<>();
+    private final Set<String> pendingMessageDeletes = new LinkedHashSet<>();
+    private final Map<String, TimelineEvent> pendingEvents = new LinkedHashMap<>();
+    private final Map<String, TimelineEvent> pendingEventDeletes = new LinkedHashMap<>();
+    private long pendingMessagesHighWater;
+    private long pendingTimelineHighWater;
+    // One-shot sync queries still waiting for Firebase - main thread only
+    private final Map<ValueEventListener, PendingQuery> pendingQueries = new LinkedHashMap<>();
     
     public interface DataUpdateCallback {
         void onSuccess(int newItemsCount);
         void onError(String error);
     }
+
+    // Maps a snapshot and writes it, returning the number of changed rows
+    private interface IngestTask {
+        int run() throws Exception;
+    }
+
+    private static final class PendingQuery {
+        final Query query;
+        final DataUpdateCallback callback;
+        final SyncMetrics.Sample sample;
+
+        PendingQuery(Query query, DataUpdateCallback callback, SyncMetrics.Sample sample) {
+            this.query = query;
+            this.callback = callback;
+            this.sample = sample;
+        }
+    }
+
+    /**
+     * Notified on the main thread after a batch of live changes was written.
+     */
+    public interface LiveSyncListener {
+        void onLiveChanges(int changedCount);
+    }
     
     public FirebaseDataManager(Context context) {
         this.context = context;
         this.dbHelper = DatabaseHelper.getInstance(context);
+        this.metrics = SyncMetrics.getInstance(context);
         
         // Clear Firebase cache to ensure fresh data
         clearFirebaseCache();
@@ -65,6 +151,21 @@ public class FirebaseDataManager {
         Log.d(TAG, "FirebaseDataManager initialized with debugging");
     }
     
+    /**
+     * Whether message syncs only cover unlock dates from a week ago to a month ahead.
+     * Stored messages outside that window are kept as they are.
+     * Opt-in: a windowed sync does not advance the updated_at high-water mark used by delta and live sync.
+     */
+    public static boolean isMessageWindowEnabled(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getBoolean(KEY_MESSAGE_WINDOW, false);
+    }
+
+    public static void setMessageWindowEnabled(Context context, boolean enabled) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putBoolean(KEY_MESSAGE_WINDOW, enabled)
+                .apply();
+    }
+
     public void fetchAndUpdateMessages(DataUpdateCallback callback) {
         // Check network connectivity first
         if (!isNetworkAvailable()) {
@@ -73,73 +174,94 @@ public class FirebaseDataManager {
             return;
         }
         
-        Log.d(TAG, "Syncing messages from Firebase...");
-        Log.d(TAG, "Firebase database URL: " + firebaseDatabase.getReference().toString());
-        Log.d(TAG, "Messages reference path: " + messagesRef.toString());
-        long startTime = System.currentTimeMillis();
+        if (isMessageWindowEnabled(context)) {
+            fetchMessageWindow(callback);
+            return;
+        }
         
-        // Get current local messages to compare
-        List<Message> localMessages = dbHelper.getAllMessages();
+        // Without a high-water mark, and once a week, the whole node is mirrored; otherwise only changed records are fetched
+        final long lastSeen = getHighWaterMark(KEY_MESSAGES_HIGH_WATER);
+        final boolean fullSync = isFullSyncDue(lastSeen, KEY_MESSAGES_FULL_SYNC);
+        Log.d(TAG, "Syncing messages from Firebase (" + (fullSync ? "full" : "changes since " + lastSeen) + ")...");
+        long startTime = System.currentTimeMillis();
+        SyncMetrics.Sample sample = SyncMetrics.start("firebase_messages");
         
         // Force fresh data from server (no cache)
         messagesRef.keepSynced(false);
-        DatabaseReference freshMessagesRef = firebaseDatabase.getReference("messages");
+        Query query = fullSync ? messagesRef : messagesRef.orderByChild(FIELD_UPDATED_AT).startAt(lastSeen);
         
-        freshMessagesRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        addSyncQuery(query, callback, sample, new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
-                try {
+                sample.networkDone();
+                // Mapping and writes happen on the ingest thread, only the summary comes back
+                ingest(callback, "Fehler beim Synchronisieren der Nachrichten", sample, () -> {
                     List<Message> firebaseMessages = new ArrayList<>();
+                    List<String> deletedDates = new ArrayList<>();
+                    long highWater = lastSeen;
+                    int withoutUpdatedAt = 0;
                     
-                    Log.d(TAG, "Firebase messages node has " + dataSnapshot.getChildrenCount() + " children");
+                    Log.d(TAG, "Firebase messages query returned " + dataSnapshot.getChildrenCount() + " children");
                     
-                    // Get all messages from Firebase
                     for (DataSnapshot messageSnapshot : dataSnapshot.getChildren()) {
+                        long updatedAt = getUpdatedAt(messageSnapshot);
+                        highWater = Math.max(highWater, updatedAt);
+                        if (updatedAt == 0) {
+                            withoutUpdatedAt++;
+                        }
                         String text = messageSnapshot.child("text").getValue(String.class);
                         String type = messageSnapshot.child("type").getValue(String.class);
                         String unlockDate = messageSnapshot.child("unlock_date").getValue(String.class);
                         
-                        if (text != null && type != null && unlockDate != null) {
-                            Message message = new Message(text, type, unlockDate);
-                            firebaseMessages.add(message);
-                            Log.d(TAG, "Firebase message loaded: " + text + " (type: " + type + ", date: " + unlockDate + ")");
+                        if (isTombstone(messageSnapshot)) {
+                            // Deleted on the server - the unlock date identifies the local row
+                            if (unlockDate != null) {
+                                deletedDates.add(unlockDate);
+                            }
+                        } else if (text != null && type != null && unlockDate != null) {
+                            firebaseMessages.add(new Message(text, type, unlockDate));
                         } else {
                             Log.w(TAG, "Incomplete message data - text: " + text + ", type: " + type + ", unlockDate: " + unlockDate);
                         }
                     }
                     
-                    if (firebaseMessages.size() > 0) {
-                        // Firebase hat Messages gefunden → Alle alten löschen, neue einfügen
-                        Log.d(TAG, "Firebase Messages gefunden → Lösche alle alten Messages und füge " + firebaseMessages.size() + " neue hinzu");
-                        dbHelper.clearAllMessages();
-                        
-                        int addedCount = 0;
-                        for (Message message : firebaseMessages) {
-                            boolean added = dbHelper.addMessage(message);
-                            if (added) {
-                                addedCount++;
-                            }
+                    int changedCount;
+                    if (fullSync) {
+                        if (firebaseMessages.isEmpty()) {
+                            // Keine Messages in Firebase
+                            Log.d(TAG, "Keine Messages in Firebase gefunden - lokale Daten bleiben unverändert");
+                            return 0;
                         }
-                        
-                        long endTime = System.currentTimeMillis();
-                        Log.d(TAG, "✅ Messages sync erfolgreich - " + addedCount + " Messages von Firebase geladen in " + (endTime - startTime) + "ms");
-                        callback.onSuccess(addedCount);
+                        // Erster oder wöchentlicher Sync → lokale Daten per Content-Hash angleichen, nur Abweichungen werden geschrieben
+                        long writeStart = System.nanoTime();
+                        UpsertResult result = dbHelper.mirrorMessages(firebaseMessages);
+                        sample.addWrite(result, writeStart);
+                        changedCount = result.inserted + result.updated + result.deleted;
+                        Log.d(TAG, "Messages mirror: " + result);
+                        recordFullSync(KEY_MESSAGES_FULL_SYNC, withoutUpdatedAt);
                     } else {
-                        // Keine Messages in Firebase
-                        Log.d(TAG, "Keine Messages in Firebase gefunden - lokale Daten bleiben unverändert");
-                        long endTime = System.currentTimeMillis();
-                        callback.onSuccess(0);
+                        long writeStart = System.nanoTime();
+                        UpsertResult result = dbHelper.upsertMessages(firebaseMessages);
+                        sample.addWrite(result, writeStart);
+                        writeStart = System.nanoTime();
+                        int deletedCount = dbHelper.deleteMessagesForDates(deletedDates);
+                        sample.addWrite(0, deletedCount, writeStart);
+                        changedCount = result.inserted + result.updated + deletedCount;
+                        Log.d(TAG, "Messages delta: " + result + ", " + deletedCount + " deleted");
                     }
+                    // Only advance after the changes are committed
+                    saveHighWaterMark(KEY_MESSAGES_HIGH_WATER, highWater);
                     
-                } catch (Exception e) {
-                    Log.e(TAG, "Error syncing messages: " + e.getMessage(), e);
-                    callback.onError("Fehler beim Synchronisieren der Nachrichten: " + e.getMessage());
-                }
+                    long endTime = System.currentTimeMillis();
+                    Log.d(TAG, "✅ Messages sync erfolgreich - " + changedCount + " Messages geändert in " + (endTime - startTime) + "ms");
+                    return changedCount;
+                });
             }
             
             @Override
             public void onCancelled(DatabaseError databaseError) {
                 Log.e(TAG, "Firebase messages sync cancelled: " + databaseError.getMessage());
+                metrics.record(sample.finish("Firebase: " + databaseError.getMessage()));
                 Log.e(TAG, "Firebase error code: " + databaseError.getCode());
                 Log.e(TAG, "Firebase error details: " + databaseError.getDetails());
                 callback.onError("Firebase Fehler: " + databaseError.getMessage());
@@ -147,6 +269,67 @@ public class FirebaseDataManager {
         });
     }
     
+    private void fetchMessageWindow(DataUpdateCallback callback) {
+        final long fromDay = EpochDays.today() - LOOK_BEHIND_DAYS;
+        final long toDay = EpochDays.today() + LOOK_AHEAD_DAYS;
+        Log.d(TAG, "Syncing messages from Firebase for " + EpochDays.format(fromDay) + " - " + EpochDays.format(toDay) + "...");
+        long startTime = System.currentTimeMillis();
+        SyncMetrics.Sample sample = SyncMetrics.start("firebase_messages_window");
+        
+        messagesRef.keepSynced(false);
+        Query query = messageWindowQuery(fromDay, toDay);
+        
+        addSyncQuery(query, callback, sample, new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                sample.networkDone();
+                // Mapping and writes happen on the ingest thread, only the summary comes back
+                ingest(callback, "Fehler beim Synchronisieren der Nachrichten", sample, () -> {
+                    List<Message> windowMessages = new ArrayList<>();
+                    
+                    for (DataSnapshot messageSnapshot : dataSnapshot.getChildren()) {
+                        if (isTombstone(messageSnapshot)) {
+                            continue; // Missing from the payload, so the merge deletes it locally
+                        }
+                        String text = messageSnapshot.child("text").getValue(String.class);
+                        String type = messageSnapshot.child("type").getValue(String.class);
+                        String unlockDate = messageSnapshot.child(FIELD_UNLOCK_DATE).getValue(String.class);
+                        
+                        if (text != null && type != null && unlockDate != null) {
+                            windowMessages.add(new Message(text, type, unlockDate));
+                        } else {
+                            Log.w(TAG, "Incomplete message data - text: " + text + ", type: " + type + ", unlockDate: " + unlockDate);
+                        }
+                    }
+                    
+                    long writeStart = System.nanoTime();
+                    UpsertResult result = dbHelper.mergeMessageWindow(fromDay, toDay, windowMessages);
+                    sample.addWrite(result, writeStart);
+                    int changedCount = result.inserted + result.updated + result.deleted;
+                    
+                    long endTime = System.currentTimeMillis();
+                    Log.d(TAG, "✅ Messages window sync erfolgreich - " + windowMessages.size() + " Messages geladen ("
+                            + result + ") in " + (endTime - startTime) + "ms");
+                    return changedCount;
+                });
+            }
+            
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.e(TAG, "Firebase messages window sync cancelled: " + databaseError.getMessage());
+                metrics.record(sample.finish("Firebase: " + databaseError.getMessage()));
+                callback.onError("Firebase Fehler: " + databaseError.getMessage());
+            }
+        });
+    }
+    
+    private Query messageWindowQuery(long fromDay, long toDay) {
+        // yyyy-MM-dd sorts like the date itself; the suffix keeps unlock dates with a time part on toDay
+        return messagesRef.orderByChild(FIELD_UNLOCK_DATE)
+                .startAt(EpochDays.format(fromDay))
+                .endAt(EpochDays.format(toDay) + "\uf8ff");
+    }
+    
     public void fetchAndUpdateTimeline(DataUpdateCallback callback) {
         // Check network connectivity first
         if (!isNetworkAvailable()) {
@@ -155,82 +338,467 @@ public class FirebaseDataManager {
             return;
         }
         
-        Log.d(TAG, "Syncing timeline events from Firebase...");
-        Log.d(TAG, "Firebase database URL: " + firebaseDatabase.getReference().toString());
-        Log.d(TAG, "Timeline reference path: " + timelineRef.toString());
+        final long lastSeen = getHighWaterMark(KEY_TIMELINE_HIGH_WATER);
+        final boolean fullSync = isFullSyncDue(lastSeen, KEY_TIMELINE_FULL_SYNC);
+        Log.d(TAG, "Syncing timeline events from Firebase (" + (fullSync ? "full" : "changes since " + lastSeen) + ")...");
         long startTime = System.currentTimeMillis();
-        
-        // Get current local timeline events to compare
-        List<TimelineEvent> localEvents = dbHelper.getAllTimelineEvents();
+        SyncMetrics.Sample sample = SyncMetrics.start("firebase_timeline");
         
         // Force fresh data from server (no cache)
         timelineRef.keepSynced(false);
-        DatabaseReference freshTimelineRef = firebaseDatabase.getReference("timeline_events");
+        Query query = fullSync ? timelineRef : timelineRef.orderByChild(FIELD_UPDATED_AT).startAt(lastSeen);
         
-        freshTimelineRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        addSyncQuery(query, callback, sample, new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot dataSnapshot) {
-                try {
+                sample.networkDone();
+                // Mapping and writes happen on the ingest thread, only the summary comes back
+                ingest(callback, "Fehler beim Synchronisieren der Timeline-Events", sample, () -> {
                     List<TimelineEvent> firebaseEvents = new ArrayList<>();
+                    List<TimelineEvent> deletedEvents = new ArrayList<>();
+                    long highWater = lastSeen;
+                    int withoutUpdatedAt = 0;
                     
-                    Log.d(TAG, "Firebase timeline node has " + dataSnapshot.getChildrenCount() + " children");
+                    Log.d(TAG, "Firebase timeline query returned " + dataSnapshot.getChildrenCount() + " children");
                     
-                    // Get all events from Firebase
                     for (DataSnapshot eventSnapshot : dataSnapshot.getChildren()) {
+                        long updatedAt = getUpdatedAt(eventSnapshot);
+                        highWater = Math.max(highWater, updatedAt);
+                        if (updatedAt == 0) {
+                            withoutUpdatedAt++;
+                        }
                         String title = eventSnapshot.child("title").getValue(String.class);
                         String date = eventSnapshot.child("date").getValue(String.class);
                         String type = eventSnapshot.child("type").getValue(String.class);
                         String description = eventSnapshot.child("description").getValue(String.class);
                         
-                        if (title != null && date != null && type != null) {
+                        if (isTombstone(eventSnapshot)) {
+                            // Deleted on the server - date + title identify the local row
+                            if (title != null && date != null) {
+                                deletedEvents.add(new TimelineEvent(title, date, type));
+                            }
+                        } else if (title != null && date != null && type != null) {
                             TimelineEvent event = new TimelineEvent(title, date, type);
                             if (description != null) {
                                 event.setDescription(description);
                             }
                             firebaseEvents.add(event);
-                            Log.d(TAG, "Firebase timeline event loaded: " + title + " (date: " + date + ", type: " + type + ")");
                         } else {
                             Log.w(TAG, "Incomplete timeline event data - title: " + title + ", date: " + date + ", type: " + type);
                         }
                     }
                     
-                    if (firebaseEvents.size() > 0) {
-                        // Firebase hat Events gefunden → Alle alten löschen, neue einfügen
-                        Log.d(TAG, "Firebase Events gefunden → Lösche alle alten Events und füge " + firebaseEvents.size() + " neue hinzu");
-                        dbHelper.clearAllTimelineEvents();
-                        
-                        int addedCount = 0;
-                        for (TimelineEvent event : firebaseEvents) {
-                            boolean added = dbHelper.addTimelineEvent(event);
-                            if (added) {
-                                addedCount++;
-                            }
+                    int changedCount;
+                    if (fullSync) {
+                        if (firebaseEvents.isEmpty()) {
+                            // Keine Events in Firebase
+                            Log.d(TAG, "Keine Events in Firebase gefunden - lokale Daten bleiben unverändert");
+                            return 0;
                         }
-                        
-                        long endTime = System.currentTimeMillis();
-                        Log.d(TAG, "✅ Timeline sync erfolgreich - " + addedCount + " Events von Firebase geladen in " + (endTime - startTime) + "ms");
-                        callback.onSuccess(addedCount);
+                        // Erster oder wöchentlicher Sync → lokale Daten per Content-Hash angleichen, nur Abweichungen werden geschrieben
+                        long writeStart = System.nanoTime();
+                        UpsertResult result = dbHelper.mirrorTimelineEvents(firebaseEvents);
+                        sample.addWrite(result, writeStart);
+                        changedCount = result.inserted + result.updated + result.deleted;
+                        Log.d(TAG, "Timeline mirror: " + result);
+                        recordFullSync(KEY_TIMELINE_FULL_SYNC, withoutUpdatedAt);
                     } else {
-                        // Keine Events in Firebase
-                        Log.d(TAG, "Keine Events in Firebase gefunden - lokale Daten bleiben unverändert");
-                        long endTime = System.currentTimeMillis();
-                        callback.onSuccess(0);
+                        long writeStart = System.nanoTime();
+                        UpsertResult result = dbHelper.upsertTimelineEvents(firebaseEvents);
+                        sample.addWrite(result, writeStart);
+                        writeStart = System.nanoTime();
+                        int deletedCount = dbHelper.deleteTimelineEvents(deletedEvents);
+                        sample.addWrite(0, deletedCount, writeStart);
+                        changedCount = result.inserted + result.updated + deletedCount;
+                        Log.d(TAG, "Timeline delta: " + result + ", " + deletedCount + " deleted");
                     }
+                    // Only advance after the changes are committed
+                    saveHighWaterMark(KEY_TIMELINE_HIGH_WATER, highWater);
                     
-                } catch (Exception e) {
-                    Log.e(TAG, "Error syncing timeline events: " + e.getMessage(), e);
-                    callback.onError("Fehler beim Synchronisieren der Timeline-Events: " + e.getMessage());
-                }
+                    long endTime = System.currentTimeMillis();
+                    Log.d(TAG, "✅ Timeline sync erfolgreich - " + changedCount + " Events geändert in " + (endTime - startTime) + "ms");
+                    return changedCount;
+                });
             }
             
             @Override
             public void onCancelled(DatabaseError databaseError) {
                 Log.e(TAG, "Firebase timeline sync cancelled: " + databaseError.getMessage());
+                metrics.record(sample.finish("Firebase: " + databaseError.getMessage()));
                 callback.onError("Firebase Fehler: " + databaseError.getMessage());
             }
         });
     }
     
+    public static boolean isLiveSyncEnabled(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getBoolean(KEY_LIVE_SYNC, false);
+    }
+
+    public static void setLiveSyncEnabled(Context context, boolean enabled) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putBoolean(KEY_LIVE_SYNC, enabled)
+                .apply();
+    }
+
+    public boolean isLiveSyncRunning() {
+        return liveMessagesListener != null;
+    }
+
+    /**
+     * Attach child listeners to both nodes and apply every add, change and removal as it arrives.
+     * Listening starts at the delta-sync high-water marks, so only records changed since the last
+     * sync are downloaded. Call {@link #stopLiveSync} when the app leaves the foreground.
+     */
+    public void startLiveSync(LiveSyncListener listener) {
+        if (isLiveSyncRunning()) {
+            return;
+        }
+        liveSyncListener = listener;
+
+        long messagesSeen = getHighWaterMark(KEY_MESSAGES_HIGH_WATER);
+        final boolean messageWindow = isMessageWindowEnabled(context);
+        if (messageWindow) {
+            // Window mode never sets the high-water mark - listen to the window instead of the whole node
+            long today = EpochDays.today();
+            liveMessagesQuery = messageWindowQuery(today - LOOK_BEHIND_DAYS, today + LOOK_AHEAD_DAYS);
+        } else if (messagesSeen == 0) {
+            liveMessagesQuery = messagesRef;
+        } else {
+            liveMessagesQuery = messagesRef.orderByChild(FIELD_UPDATED_AT).startAt(messagesSeen);
+        }
+        liveMessagesListener = liveMessagesQuery.addChildEventListener(new LiveChildListener() {
+            @Override
+            void onUpsert(DataSnapshot snapshot) {
+                Message message = readMessage(snapshot);
+                if (message != null) {
+                    pendingMessageDeletes.remove(message.getUnlockDate());
+                    pendingMessages.put(message.getUnlockDate(), message);
+                }
+            }
+
+            @Override
+            void onDelete(DataSnapshot snapshot) {
+                String unlockDate = snapshot.child(FIELD_UNLOCK_DATE).getValue(String.class);
+                if (unlockDate != null) {
+                    pendingMessages.remove(unlockDate);
+                    pendingMessageDeletes.add(unlockDate);
+                }
+            }
+
+            @Override
+            void onSeen(long updatedAt) {
+                // A window only sees part of the node, so it must not move the delta-sync mark
+                if (!messageWindow) {
+                    pendingMessagesHighWater = Math.max(pendingMessagesHighWater, updatedAt);
+                }
+            }
+        });
+
+        long timelineSeen = getHighWaterMark(KEY_TIMELINE_HIGH_WATER);
+        liveTimelineQuery = timelineSeen == 0 ? timelineRef
+                : timelineRef.orderByChild(FIELD_UPDATED_AT).startAt(timelineSeen);
+        liveTimelineListener = liveTimelineQuery.addChildEventListener(new LiveChildListener() {
+            @Override
+            void onUpsert(DataSnapshot snapshot) {
+                TimelineEvent event = readTimelineEvent(snapshot);
+                if (event != null) {
+                    String key = event.getDate() + "|" + event.getTitle();
+                    pendingEventDeletes.remove(key);
+                    pendingEvents.put(key, event);
+                }
+            }
+
+            @Override
+            void onDelete(DataSnapshot snapshot) {
+                String title = snapshot.child("title").getValue(String.class);
+                String date = snapshot.child("date").getValue(String.class);
+                if (title != null && date != null) {
+                    String key = date + "|" + title;
+                    pendingEvents.remove(key);
+                    pendingEventDeletes.put(key, new TimelineEvent(title, date, null));
+                }
+            }
+
+            @Override
+            void onSeen(long updatedAt) {
+                pendingTimelineHighWater = Math.max(pendingTimelineHighWater, updatedAt);
+            }
+        });
+
+        Log.d(TAG, "Live sync started (messages since " + messagesSeen + ", timeline since " + timelineSeen + ")");
+    }
+
+    /**
+     * Detach the live listeners and write whatever is still pending.
+     */
+    public void stopLiveSync() {
+        if (!isLiveSyncRunning()) {
+            return;
+        }
+        liveMessagesQuery.removeEventListener(liveMessagesListener);
+        liveTimelineQuery.removeEventListener(liveTimelineListener);
+        liveMessagesListener = null;
+        liveTimelineListener = null;
+        liveMessagesQuery = null;
+        liveTimelineQuery = null;
+
+        mainHandler.removeCallbacks(liveFlush);
+        flushLiveChanges();
+        liveSyncListener = null;
+        Log.d(TAG, "Live sync stopped");
+    }
+
+    /**
+     * Turns child events into pending changes and schedules a batch write.
+     * Firebase delivers all events on the main thread, so the pending maps need no locking.
+     */
+    private abstract class LiveChildListener implements ChildEventListener {
+        abstract void onUpsert(DataSnapshot snapshot);
+        abstract void onDelete(DataSnapshot snapshot);
+        abstract void onSeen(long updatedAt);
+
+        @Override
+        public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+            onChildChanged(snapshot, previousChildName);
+        }
+
+        @Override
+        public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+            onSeen(getUpdatedAt(snapshot));
+            if (isTombstone(snapshot)) {
+                onDelete(snapshot);
+            } else {
+                onUpsert(snapshot);
+            }
+            scheduleLiveFlush();
+        }
+
+        @Override
+        public void onChildRemoved(DataSnapshot snapshot) {
+            // Hard delete on the server - the last known value still identifies the local row
+            onDelete(snapshot);
+            scheduleLiveFlush();
+        }
+
+        @Override
+        public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+            // Order is irrelevant for the local tables
+        }
+
+        @Override
+        public void onCancelled(DatabaseError databaseError) {
+            Log.e(TAG, "Live sync cancelled: " + databaseError.getMessage());
+            stopLiveSync();
+        }
+    }
+
+    // Events arriving within the delay end up in the same write
+    private void scheduleLiveFlush() {
+        if (!liveFlushScheduled) {
+            liveFlushScheduled = true;
+            mainHandler.postDelayed(liveFlush, LIVE_BATCH_DELAY_MS);
+        }
+    }
+
+    private void flushLiveChanges() {
+        liveFlushScheduled = false;
+        if (pendingMessages.isEmpty() && pendingMessageDeletes.isEmpty()
+                && pendingEvents.isEmpty() && pendingEventDeletes.isEmpty()) {
+            return;
+        }
+        // Hand a copy to the ingest thread so new events can be collected meanwhile
+        List<Message> messages = new ArrayList<>(pendingMessages.values());
+        List<String> messageDeletes = new ArrayList<>(pendingMessageDeletes);
+        List<TimelineEvent> events = new ArrayList<>(pendingEvents.values());
+        List<TimelineEvent> eventDeletes = new ArrayList<>(pendingEventDeletes.values());
+        long messagesHighWater = pendingMessagesHighWater;
+        long timelineHighWater = pendingTimelineHighWater;
+        LiveSyncListener listener = liveSyncListener;
+        pendingMessages.clear();
+        pendingMessageDeletes.clear();
+        pendingEvents.clear();
+        pendingEventDeletes.clear();
+
+        INGEST_EXECUTOR.execute(() -> {
+            // Live batches have no network phase - the sample measures the write only
+            SyncMetrics.Sample sample = SyncMetrics.start("firebase_live");
+            String error = null;
+            int changedCount = 0;
+            try {
+                if (!messages.isEmpty() || !messageDeletes.isEmpty()) {
+                    long writeStart = System.nanoTime();
+                    UpsertResult result = dbHelper.upsertMessages(messages);
+                    sample.addWrite(result, writeStart);
+                    writeStart = System.nanoTime();
+                    int deletedCount = dbHelper.deleteMessagesForDates(messageDeletes);
+                    sample.addWrite(0, deletedCount, writeStart);
+                    changedCount += result.inserted + result.updated + deletedCount;
+                    Log.d(TAG, "Live messages: " + result + ", " + deletedCount + " deleted");
+                }
+                if (!events.isEmpty() || !eventDeletes.isEmpty()) {
+                    long writeStart = System.nanoTime();
+                    UpsertResult result = dbHelper.upsertTimelineEvents(events);
+                    sample.addWrite(result, writeStart);
+                    writeStart = System.nanoTime();
+                    int deletedCount = dbHelper.deleteTimelineEvents(eventDeletes);
+                    sample.addWrite(0, deletedCount, writeStart);
+                    changedCount += result.inserted + result.updated + deletedCount;
+                    Log.d(TAG, "Live timeline: " + result + ", " + deletedCount + " deleted");
+                }
+                // Committed - the next one-shot or live sync can start after these records
+                if (messagesHighWater > getHighWaterMark(KEY_MESSAGES_HIGH_WATER)) {
+                    saveHighWaterMark(KEY_MESSAGES_HIGH_WATER, messagesHighWater);
+                }
+                if (timelineHighWater > getHighWaterMark(KEY_TIMELINE_HIGH_WATER)) {
+                    saveHighWaterMark(KEY_TIMELINE_HIGH_WATER, timelineHighWater);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error writing live changes: " + e.getMessage(), e);
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+            metrics.record(sample.finish(error));
+
+            final int changed = changedCount;
+            if (changed > 0 && listener != null) {
+                mainHandler.post(() -> listener.onLiveChanges(changed));
+            }
+        });
+    }
+
+    // Registers a one-shot sync query so cancelPendingSyncs can abandon it while no data has arrived
+    private void addSyncQuery(Query query, DataUpdateCallback callback, SyncMetrics.Sample sample,
+                              ValueEventListener listener) {
+        ValueEventListener tracked = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                if (pendingQueries.remove(this) != null) {
+                    listener.onDataChange(dataSnapshot);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                if (pendingQueries.remove(this) != null) {
+                    listener.onCancelled(databaseError);
+                }
+            }
+        };
+        pendingQueries.put(tracked, new PendingQuery(query, callback, sample));
+        query.addListenerForSingleValueEvent(tracked);
+    }
+
+    /**
+     * Abandon one-shot syncs that are still waiting for Firebase: their listeners are removed and
+     * their callbacks receive the error right away. Syncs whose data already arrived finish writing
+     * and report as usual. Must be called on the main thread.
+     */
+    public void cancelPendingSyncs(String error) {
+        if (pendingQueries.isEmpty()) {
+            return;
+        }
+        List<PendingQuery> cancelled = new ArrayList<>();
+        for (Map.Entry<ValueEventListener, PendingQuery> entry : pendingQueries.entrySet()) {
+            entry.getValue().query.removeEventListener(entry.getKey());
+            cancelled.add(entry.getValue());
+        }
+        pendingQueries.clear();
+        Log.w(TAG, "Cancelled " + cancelled.size() + " pending sync queries: " + error);
+        for (PendingQuery pending : cancelled) {
+            metrics.record(pending.sample.finish(error));
+            pending.callback.onError(error);
+        }
+    }
+
+    /**
+     * Run a sync task on the ingest thread and report its result to the callback on the main thread.
+     */
+    private void ingest(DataUpdateCallback callback, String errorMessage, SyncMetrics.Sample sample, IngestTask task) {
+        INGEST_EXECUTOR.execute(() -> {
+            try {
+                int changedCount = task.run();
+                metrics.record(sample.finish(null));
+                mainHandler.post(() -> callback.onSuccess(changedCount));
+            } catch (Exception e) {
+                Log.e(TAG, errorMessage + ": " + e.getMessage(), e);
+                metrics.record(sample.finish(e.getClass().getSimpleName() + ": " + e.getMessage()));
+                mainHandler.post(() -> callback.onError(errorMessage + ": " + e.getMessage()));
+            }
+        });
+    }
+
+    private static Message readMessage(DataSnapshot snapshot) {
+        String text = snapshot.child("text").getValue(String.class);
+        String type = snapshot.child("type").getValue(String.class);
+        String unlockDate = snapshot.child(FIELD_UNLOCK_DATE).getValue(String.class);
+        if (text == null || type == null || unlockDate == null) {
+            Log.w(TAG, "Incomplete message data - text: " + text + ", type: " + type + ", unlockDate: " + unlockDate);
+            return null;
+        }
+        return new Message(text, type, unlockDate);
+    }
+
+    private static TimelineEvent readTimelineEvent(DataSnapshot snapshot) {
+        String title = snapshot.child("title").getValue(String.class);
+        String date = snapshot.child("date").getValue(String.class);
+        String type = snapshot.child("type").getValue(String.class);
+        String description = snapshot.child("description").getValue(String.class);
+        if (title == null || date == null || type == null) {
+            Log.w(TAG, "Incomplete timeline event data - title: " + title + ", date: " + date + ", type: " + type);
+            return null;
+        }
+        TimelineEvent event = new TimelineEvent(title, date, type);
+        if (description != null) {
+            event.setDescription(description);
+        }
+        return event;
+    }
+
+    // Records without updated_at (written before delta sync) count as 0 and are only picked up by a full sync
+    private static long getUpdatedAt(DataSnapshot snapshot) {
+        Long updatedAt = snapshot.child(FIELD_UPDATED_AT).getValue(Long.class);
+        return updatedAt != null ? updatedAt : 0;
+    }
+    
+    private static boolean isTombstone(DataSnapshot snapshot) {
+        return Boolean.TRUE.equals(snapshot.child(FIELD_DELETED).getValue(Boolean.class));
+    }
+    
+    private long getHighWaterMark(String key) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getLong(key, 0);
+    }
+    
+    private void saveHighWaterMark(String key, long updatedAt) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit().putLong(key, updatedAt).apply();
+    }
+    
+    private boolean isFullSyncDue(long lastSeen, String fullSyncKey) {
+        long lastFullSync = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getLong(fullSyncKey, 0);
+        return lastSeen == 0 || System.currentTimeMillis() - lastFullSync >= FULL_SYNC_INTERVAL_MS;
+    }
+    
+    private void recordFullSync(String fullSyncKey, int withoutUpdatedAt) {
+        if (withoutUpdatedAt > 0) {
+            // A delta query never returns records without updated_at, so keep mirroring until all have one
+            Log.w(TAG, withoutUpdatedAt + " records without " + FIELD_UPDATED_AT + " - next sync mirrors again");
+            return;
+        }
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putLong(fullSyncKey, System.currentTimeMillis())
+                .apply();
+    }
+    
+    /**
+     * Forget the high-water marks so the next sync mirrors both nodes completely again.
+     */
+    public void resetDeltaSync() {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .remove(KEY_MESSAGES_HIGH_WATER)
+                .remove(KEY_TIMELINE_HIGH_WATER)
+                .remove(KEY_MESSAGES_FULL_SYNC)
+                .remove(KEY_TIMELINE_FULL_SYNC)
+                .apply();
+    }
+    
     // Method to add a new message to Firebase (for testing/admin use)
     public void addMessageToFirebase(String text, String type, String unlockDate) {
         DatabaseReference newMessageRef = messagesRef.push();
@@ -238,6 +806,7 @@ public class FirebaseDataManager {
         newMessageRef.child("text").setValue(text);
         newMessageRef.child("type").setValue(type);
         newMessageRef.child("unlock_date").setValue(unlockDate);
+        newMessageRef.child(FIELD_UPDATED_AT).setValue(ServerValue.TIMESTAMP);
         
         Log.d(TAG, "Added message to Firebase: " + text);
     }
@@ -252,6 +821,7 @@ public class FirebaseDataManager {
         if (description != null) {
             newEventRef.child("description").setValue(description);
         }
+        newEventRef.child(FIELD_UPDATED_AT).setValue(ServerValue.TIMESTAMP);
         
         Log.d(TAG, "Added timeline event to Firebase: " + title);
     }
@@ -362,6 +932,8 @@ public class FirebaseDataManager {
     
     public void shutdown() {
         Log.d(TAG, "FirebaseDataManager shutdown");
+        stopLiveSync();
+        cancelPendingSyncs("Abgebrochen");
         // Firebase connections are automatically managed
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.martin.love_application;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+/**
+ * Tells the sync coordinator when activities start and stop, so live sync follows the whole app
+ * instead of a single screen.
+ */
+public class LoveApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        SyncCoordinator coordinator = SyncCoordinator.getInstance(this);
+        registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityStarted(Activity activity) {
+                coordinator.onActivityStarted();
+            }
+
+            @Override
+            public void onActivityStopped(Activity activity) {
+                coordinator.onActivityStopped();
+            }
+
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            }
+
+            @Override
+            public void onActivityResumed(Activity activity) {
+            }
+
+            @Override
+            public void onActivityPaused(Activity activity) {
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+            }
+
+            @Override
+            public void onActivityDestroyed(Activity activity) {
+            }
+        });
+    }
+}
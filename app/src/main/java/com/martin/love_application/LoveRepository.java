@@ -0,0 +1,214 @@
+package com.martin.love_application;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking access to {@link DatabaseHelper} for screens.
+ * Queries run on a small I/O pool and results are delivered on the main thread,
+ * unless the owning Activity was destroyed in the meantime.
+ */
+public class LoveRepository {
+
+    private static final String TAG = "LoveRepository";
+
+    // WAL lets readers run next to a writer - more threads would only contend for the connection pool
+    private static final int IO_THREADS = 2;
+
+    private static LoveRepository instance;
+
+    private final DatabaseHelper dbHelper;
+    private final ExecutorService ioExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Receives a query result on the main thread.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * Receives a failed query on the main thread, so callers can reset state they set up for the result.
+     */
+    public interface ErrorCallback {
+        void onError(Exception error);
+    }
+
+    /**
+     * Handle for a submitted query. Cancelling only drops the result - a running query is not interrupted.
+     */
+    public static final class Task {
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    public static synchronized LoveRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new LoveRepository(DatabaseHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    private LoveRepository(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "love-db-" + threadCount.incrementAndGet());
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.ioExecutor = executor;
+    }
+
+    /**
+     * Get today's message (null if there is none).
+     */
+    public Task getTodaysMessage(LifecycleOwner owner, Callback<Message> callback) {
+        return submit(owner, dbHelper::getTodaysMessage, callback);
+    }
+
+    /**
+     * Load the timeline page after the given key - see {@link DatabaseHelper#getTimelineEventsAfter}.
+     */
+    public Task getTimelineEventsAfter(LifecycleOwner owner, long afterEpochDay, int afterId, int limit,
+                                       Callback<List<TimelineEvent>> callback, ErrorCallback errorCallback) {
+        return submit(owner, () -> dbHelper.getTimelineEventsAfter(afterEpochDay, afterId, limit),
+                callback, errorCallback);
+    }
+
+    /**
+     * Load timeline events by row id - see {@link DatabaseHelper#getTimelineEventsByIds}.
+     */
+    public Task getTimelineEventsByIds(LifecycleOwner owner, Collection<Long> ids,
+                                       Callback<List<TimelineEvent>> callback, ErrorCallback errorCallback) {
+        return submit(owner, () -> dbHelper.getTimelineEventsByIds(ids), callback, errorCallback);
+    }
+
+    public Task getTimelineEventsCount(LifecycleOwner owner, Callback<Integer> callback) {
+        return submit(owner, dbHelper::getTimelineEventsCount, callback);
+    }
+
+    /**
+     * Version of a table, bumped after every committed write - see {@link DatabaseHelper#getTableVersion}.
+     * Cheap enough to call on the main thread.
+     */
+    public long getTableVersion(String table) {
+        return dbHelper.getTableVersion(table);
+    }
+
+    /**
+     * See {@link DatabaseHelper#addTableObserver} - the observer runs on the writing thread.
+     */
+    void addTableObserver(String table, TableChangeTracker.Observer observer) {
+        dbHelper.addTableObserver(table, observer);
+    }
+
+    void removeTableObserver(String table, TableChangeTracker.Observer observer) {
+        dbHelper.removeTableObserver(table, observer);
+    }
+
+    /**
+     * See {@link DatabaseHelper#addChangeSetObserver} - the observer runs on the writing thread.
+     */
+    void addChangeSetObserver(String table, TableChangeTracker.ChangeSetObserver observer) {
+        dbHelper.addChangeSetObserver(table, observer);
+    }
+
+    void removeChangeSetObserver(String table, TableChangeTracker.ChangeSetObserver observer) {
+        dbHelper.removeChangeSetObserver(table, observer);
+    }
+
+    /**
+     * Mark today's message as unlocked in the background.
+     */
+    public void unlockTodaysMessage() {
+        ioExecutor.execute(dbHelper::unlockTodaysMessage);
+    }
+
+    /**
+     * Run any database work on the I/O pool and deliver its result on the main thread.
+     * Must be called on the main thread. The result is dropped once the owner is destroyed.
+     * A failed query is only logged - use the overload with an {@link ErrorCallback} when state waits for the result.
+     */
+    public <T> Task submit(LifecycleOwner owner, Callable<T> query, Callback<T> callback) {
+        return submit(owner, query, callback, null);
+    }
+
+    /**
+     * Like {@link #submit(LifecycleOwner, Callable, Callback)}, but a failed query is reported to errorCallback.
+     * @param errorCallback Receives the failure on the main thread, may be null
+     */
+    public <T> Task submit(LifecycleOwner owner, Callable<T> query, Callback<T> callback,
+                           ErrorCallback errorCallback) {
+        Task task = new Task();
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            task.cancelled = true;
+            return task;
+        }
+
+        LifecycleEventObserver observer = (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                task.cancel();
+            }
+        };
+        lifecycle.addObserver(observer);
+
+        task.future = ioExecutor.submit(() -> {
+            if (task.cancelled) {
+                return;
+            }
+            T result;
+            try {
+                result = query.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Query failed: " + e.getMessage());
+                mainHandler.post(() -> {
+                    lifecycle.removeObserver(observer);
+                    if (!task.cancelled && errorCallback != null) {
+                        errorCallback.onError(e);
+                    }
+                });
+                return;
+            }
+            mainHandler.post(() -> {
+                lifecycle.removeObserver(observer);
+                if (!task.cancelled) {
+                    callback.onResult(result);
+                }
+            });
+        });
+        return task;
+    }
+}
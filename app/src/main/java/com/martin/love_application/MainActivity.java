@@ -51,9 +51,16 @@ public class MainActivity extends AppCompatActivity {
     // Flip animation state
     private boolean isShowingFront = true;
 
-    private DatabaseHelper dbHelper;
+    private LoveRepository repository;
+    // Messages table version and day of the message on screen - unchanged means nothing to reload
+    private long shownMessagesVersion = -1;
+    private long shownMessageDay = EpochDays.NONE;
     private NotificationHelper notificationHelper;
-    private FirebaseDataManager firebaseManager;
+    private SyncCoordinator syncCoordinator;
+    private final SyncCoordinator.StateListener syncStateListener = this::onSyncStateChanged;
+    // Background syncs land while the screen is visible - reload when they touch the messages
+    private final TableChangeTracker.Observer messagesObserver =
+            table -> runOnUiThread(this::loadTodaysMessage);
 
     // Your relationship start date - UPDATE THIS!
     private static final String RELATIONSHIP_START = "2024-11-01"; // Format: YYYY-MM-DD
@@ -98,6 +105,15 @@ public class MainActivity extends AppCompatActivity {
         cardFront.setOnClickListener(v -> flipCard());
         cardBack.setOnClickListener(v -> flipCard());
         syncButtonMain.setOnClickListener(v -> manualSync());
+        // Hidden entry to the sync diagnostics
+        dayCounter.setOnLongClickListener(v -> {
+            startActivity(new Intent(this, SyncDiagnosticsActivity.class));
+            return true;
+        });
+        syncButtonMain.setOnLongClickListener(v -> {
+            toggleLiveSync();
+            return true;
+        });
         
         // Set camera distance for 3D rotation (farther camera = less perspective distortion)
         float scale = getResources().getDisplayMetrics().density;
@@ -106,13 +122,13 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void setupDatabase() {
-        dbHelper = DatabaseHelper.getInstance(this);
-        firebaseManager = new FirebaseDataManager(this);
+        repository = LoveRepository.getInstance(this);
+        syncCoordinator = SyncCoordinator.getInstance(this);
 
-        // NO automatic sync on startup - only manual sync and daily sync
-        Log.d("MainActivity", "App started - no automatic sync, waiting for manual sync or daily sync");
+        // NO sync on startup - SyncJobService syncs in the background, the app only reads local data
+        Log.d("MainActivity", "App started - showing local data, sync runs in the background");
         
-        // Check if daily sync is needed
+        // Make sure the background sync is scheduled
         checkAndPerformDailySync();
     }
 
@@ -120,90 +136,48 @@ public class MainActivity extends AppCompatActivity {
     private void fetchNewDataFromFirebase() {
         Log.d("MainActivity", "Attempting to fetch new data from Firebase...");
 
-        // Add timeout for Firebase operations
-        android.os.Handler timeoutHandler = new android.os.Handler();
-        final boolean[] syncCompleted = {false};
-        
-        // Set timeout of 10 seconds
-        timeoutHandler.postDelayed(() -> {
-            if (!syncCompleted[0]) {
-                Log.w("MainActivity", "Firebase sync timeout - using local data");
-                Toast.makeText(MainActivity.this, "⚠️ Sync timeout - lokale Daten werden verwendet", Toast.LENGTH_SHORT).show();
-                loadTodaysMessage();
-                syncCompleted[0] = true;
-            }
-        }, 10000);
-
-        // Fetch messages
-        firebaseManager.fetchAndUpdateMessages(new FirebaseDataManager.DataUpdateCallback() {
-            @Override
-            public void onSuccess(int newMessagesCount) {
-                if (!syncCompleted[0]) {
-                    syncCompleted[0] = true;
-                    timeoutHandler.removeCallbacksAndMessages(null);
-                    
-                    // Reset sync button
-                    if (syncButtonMain != null) {
-                        syncButtonMain.setEnabled(true);
-                        syncButtonMain.setText("🔄 Aktualisieren");
-                    }
-                    
-                    // Always reload today's message after sync
-                    loadTodaysMessage();
-                    
-                    if (newMessagesCount > 0) {
-                        Log.d("MainActivity", "✅ Firebase Messages sync erfolgreich - " + newMessagesCount + " Messages von Firebase geladen");
-                        Toast.makeText(MainActivity.this,
-                                "✅ Firebase Sync: " + newMessagesCount + " Messages geladen",
-                                Toast.LENGTH_SHORT).show();
-                    } else {
-                        Log.d("MainActivity", "Keine Messages in Firebase gefunden");
-                        Toast.makeText(MainActivity.this, "ℹ️ Keine Messages in Firebase gefunden", Toast.LENGTH_SHORT).show();
-                    }
-                }
-            }
-
-            @Override
-            public void onError(String error) {
-                if (!syncCompleted[0]) {
-                    syncCompleted[0] = true;
-                    timeoutHandler.removeCallbacksAndMessages(null);
-                    
-                    // Reset sync button
-                    if (syncButtonMain != null) {
-                        syncButtonMain.setEnabled(true);
-                        syncButtonMain.setText("🔄 Aktualisieren");
-                    }
-                    
-                    Log.e("MainActivity", "❌ Firebase Messages sync fehlgeschlagen: " + error);
-                    Toast.makeText(MainActivity.this, "❌ Firebase Messages Sync fehlgeschlagen: " + error, Toast.LENGTH_LONG).show();
-                    // Still try to load today's message from local data
-                    loadTodaysMessage();
-                }
+        // Joins a sync that is already running - repeated taps cause no extra downloads
+        syncCoordinator.requestSync(result -> {
+            if (isDestroyed()) {
+                return;
             }
-        });
+            // Always reload today's message after sync
+            loadTodaysMessage();
 
-        // Fetch timeline events
-        firebaseManager.fetchAndUpdateTimeline(new FirebaseDataManager.DataUpdateCallback() {
-            @Override
-            public void onSuccess(int newEventsCount) {
-                if (newEventsCount > 0) {
-                    Log.d("MainActivity", "✅ Firebase Timeline sync erfolgreich - " + newEventsCount + " Events von Firebase geladen");
-                    Toast.makeText(MainActivity.this,
-                            "✅ Firebase Sync: " + newEventsCount + " Timeline-Events geladen",
-                            Toast.LENGTH_SHORT).show();
-                } else {
-                    Log.d("MainActivity", "Keine Timeline Events in Firebase gefunden");
-                }
+            if (result.messagesError != null) {
+                Log.e("MainActivity", "❌ Firebase Messages sync fehlgeschlagen: " + result.messagesError);
+                Toast.makeText(MainActivity.this, "❌ Firebase Messages Sync fehlgeschlagen: " + result.messagesError, Toast.LENGTH_LONG).show();
+            } else if (result.newMessages > 0) {
+                Log.d("MainActivity", "✅ Firebase Messages sync erfolgreich - " + result.newMessages + " Messages von Firebase geladen");
+                Toast.makeText(MainActivity.this,
+                        "✅ Firebase Sync: " + result.newMessages + " Messages geladen",
+                        Toast.LENGTH_SHORT).show();
+            } else {
+                Log.d("MainActivity", "Keine Messages in Firebase gefunden");
+                Toast.makeText(MainActivity.this, "ℹ️ Keine Messages in Firebase gefunden", Toast.LENGTH_SHORT).show();
             }
 
-            @Override
-            public void onError(String error) {
-                Log.e("MainActivity", "❌ Firebase Timeline sync fehlgeschlagen: " + error);
+            if (result.timelineError != null) {
+                Log.e("MainActivity", "❌ Firebase Timeline sync fehlgeschlagen: " + result.timelineError);
+            } else if (result.newEvents > 0) {
+                Log.d("MainActivity", "✅ Firebase Timeline sync erfolgreich - " + result.newEvents + " Events von Firebase geladen");
+                Toast.makeText(MainActivity.this,
+                        "✅ Firebase Sync: " + result.newEvents + " Timeline-Events geladen",
+                        Toast.LENGTH_SHORT).show();
+            } else {
+                Log.d("MainActivity", "Keine Timeline Events in Firebase gefunden");
             }
         });
     }
 
+    // The sync button follows the coordinator, whoever started the sync
+    private void onSyncStateChanged(boolean running) {
+        if (syncButtonMain != null) {
+            syncButtonMain.setEnabled(!running);
+            syncButtonMain.setText(running ? "🔄 Synchronisiere..." : "🔄 Aktualisieren");
+        }
+    }
+
     // 👈 Add this optional method if you want to refresh UI after new messages
     private void refreshMessageDisplay() {
         // This would update any UI elements that show message counts or status
@@ -250,7 +224,22 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void loadTodaysMessage() {
-        Message todaysMessage = dbHelper.getTodaysMessage();
+        long version = repository.getTableVersion(DatabaseHelper.TABLE_MESSAGES);
+        long today = EpochDays.today();
+        if (version == shownMessagesVersion && today == shownMessageDay) {
+            Log.d("MainActivity", "Messages unchanged since last load - keeping today's message");
+            return;
+        }
+
+        // Read off the main thread - the result is dropped if this Activity is gone by then
+        repository.getTodaysMessage(this, todaysMessage -> {
+            shownMessagesVersion = version;
+            shownMessageDay = today;
+            showTodaysMessage(todaysMessage);
+        });
+    }
+
+    private void showTodaysMessage(Message todaysMessage) {
         Log.d("MainActivity", "Loading today's message: " + (todaysMessage != null ? "Found message: " + todaysMessage.getText() : "No message found"));
 
         if (todaysMessage != null) {
@@ -270,7 +259,7 @@ public class MainActivity extends AppCompatActivity {
 
             // Mark message as unlocked if not already
             if (!todaysMessage.isUnlocked()) {
-                dbHelper.unlockTodaysMessage();
+                repository.unlockTodaysMessage();
             }
 
         } else {
@@ -442,53 +431,51 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        repository.addTableObserver(DatabaseHelper.TABLE_MESSAGES, messagesObserver);
+        syncCoordinator.addStateListener(syncStateListener);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        repository.removeTableObserver(DatabaseHelper.TABLE_MESSAGES, messagesObserver);
+        syncCoordinator.removeStateListener(syncStateListener);
+    }
+
+    private void toggleLiveSync() {
+        // Live changes reach the card through messagesObserver like any other write
+        boolean enabled = !FirebaseDataManager.isLiveSyncEnabled(this);
+        syncCoordinator.setLiveSyncEnabled(enabled);
+        if (enabled) {
+            Toast.makeText(this, "⚡ Live-Synchronisation aktiviert", Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(this, "Live-Synchronisation deaktiviert", Toast.LENGTH_SHORT).show();
+        }
+    }
+
     private void checkAndPerformDailySync() {
-        // Check if we need daily sync (once per day)
-        long lastSyncTime = getSharedPreferences("love_app_prefs", MODE_PRIVATE)
-            .getLong("last_sync_time", 0);
+        // Local data is shown right away - syncing never blocks opening the app
+        loadTodaysMessage();
+
+        long lastSyncTime = SyncCoordinator.getLastSyncTime(this);
         long currentTime = System.currentTimeMillis();
         long oneDayInMillis = 24 * 60 * 60 * 1000;
         
         if (currentTime - lastSyncTime > oneDayInMillis) {
-            Log.d("MainActivity", "📅 Daily sync needed - performing automatic sync");
-            Toast.makeText(this, "📅 Tägliche Synchronisation...", Toast.LENGTH_SHORT).show();
-            performSyncAndSaveTime();
+            Log.d("MainActivity", "📅 Last sync older than a day - scheduling background catch-up");
+            SyncJobService.scheduleCatchUp(this);
         } else {
             Log.d("MainActivity", "✅ Daily sync not needed yet - last sync was recent");
-            // Just load today's message from local data
-            loadTodaysMessage();
+            SyncJobService.scheduleDaily(this);
         }
     }
     
     private void manualSync() {
-        syncButtonMain.setEnabled(false);
-        syncButtonMain.setText("🔄 Synchronisiere...");
-        
         Toast.makeText(this, "🔄 Manuelle Synchronisation...", Toast.LENGTH_SHORT).show();
-        
-        // Manual sync - perform sync and save time
-        performSyncAndSaveTime();
-    }
-    
-    private void performSyncAndSaveTime() {
-        // Perform the actual Firebase sync
         fetchNewDataFromFirebase();
-        
-        // Save sync time
-        getSharedPreferences("love_app_prefs", MODE_PRIVATE)
-            .edit()
-            .putLong("last_sync_time", System.currentTimeMillis())
-            .apply();
-        
-        Log.d("MainActivity", "💾 Sync time saved");
-        
-        // Re-enable button after delay (Firebase callbacks will also handle this)
-        new android.os.Handler().postDelayed(() -> {
-            if (syncButtonMain != null) {
-                syncButtonMain.setEnabled(true);
-                syncButtonMain.setText("🔄 Aktualisieren");
-            }
-        }, 3000);
     }
 
     private void openTimeline() {
@@ -546,13 +533,4 @@ public class MainActivity extends AppCompatActivity {
             }
         }
     }
-
-    // 👈 Add cleanup when activity is destroyed
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (firebaseManager != null) {
-            firebaseManager.shutdown();
-        }
-    }
 }
\ No newline at end of file
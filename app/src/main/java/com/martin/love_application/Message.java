@@ -6,6 +6,7 @@ public class Message {
     private String type;
     private String date;
     private String unlockDate;
+    private long epochDay = EpochDays.NONE; // Unlock date as days since 1970-01-01
     private boolean isUnlocked;
 
     // Constructors
@@ -17,6 +18,7 @@ public class Message {
         this.type = type;
         this.unlockDate = unlockDate;
         this.date = unlockDate; // For compatibility
+        this.epochDay = EpochDays.parse(unlockDate);
         this.isUnlocked = false;
     }
 
@@ -53,6 +55,14 @@ public class Message {
         this.date = date;
     }
 
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(long epochDay) {
+        this.epochDay = epochDay;
+    }
+
     public boolean isUnlocked() {
         return isUnlocked;
     }
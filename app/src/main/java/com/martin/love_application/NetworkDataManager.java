@@ -1,17 +1,24 @@
 package com.martin.love_application;
 
 import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import java.io.BufferedReader;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.MalformedJsonException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 public class NetworkDataManager {
     private static final String TAG = "NetworkDataManager";
@@ -19,20 +26,44 @@ public class NetworkDataManager {
     private static final String MESSAGES_ENDPOINT = "messages.json";
     private static final String TIMELINE_ENDPOINT = "timeline.json";
 
+    // Object key holding the records when a payload is not a bare array
+    private static final String MESSAGES_WRAPPER = "messages";
+    private static final String TIMELINE_WRAPPER = "timeline_events";
+
+    // Last payload per endpoint, replayed when offline and revalidated with ETag / Last-Modified
+    private static final long RESPONSE_CACHE_BYTES = 2L * 1024 * 1024;
+
+    // One thread per endpoint, so a full sync runs both requests side by side
+    private static final int NETWORK_THREADS = 2;
+
+    // Records per transaction while a payload is streamed into the database.
+    // Payloads are only upserted: the tables are shared with the Firebase sync, which owns deletions.
+    private static final int BATCH_SIZE = 200;
+
     private Context context;
     private DatabaseHelper dbHelper;
     private ExecutorService executor;
+    private ResponseCache responseCache;
+    private SyncMetrics metrics;
 
     public interface DataUpdateCallback {
         void onSuccess(int newItemsCount);
         void onError(String error);
         default void onStarted() {} // Optional callback for when fetch starts
+        default void onSyncResult(SyncResult result) {} // Per-endpoint details, fetchAndUpdateAll only
+    }
+
+    // Reads the record array of a payload and applies it, returning the number of new or changed rows
+    private interface RecordArrayReader {
+        int read(JsonReader reader, SyncMetrics.Sample sample) throws IOException;
     }
 
     public NetworkDataManager(Context context) {
         this.context = context;
         this.dbHelper = DatabaseHelper.getInstance(context);
-        this.executor = Executors.newSingleThreadExecutor();
+        this.executor = Executors.newFixedThreadPool(NETWORK_THREADS);
+        this.responseCache = new ResponseCache(context.getApplicationContext(), RESPONSE_CACHE_BYTES);
+        this.metrics = SyncMetrics.getInstance(context);
     }
 
     /**
@@ -47,8 +78,7 @@ public class NetworkDataManager {
         
         executor.execute(() -> {
             try {
-                String jsonResponse = fetchDataFromUrl(GITHUB_PAGES_BASE_URL + MESSAGES_ENDPOINT);
-                int newMessages = processMessagesJson(jsonResponse);
+                int newMessages = syncEndpoint(MESSAGES_ENDPOINT, MESSAGES_WRAPPER, this::readMessages).changedRows;
 
                 // Run callback on main thread
                 if (context instanceof android.app.Activity) {
@@ -75,8 +105,7 @@ public class NetworkDataManager {
         
         executor.execute(() -> {
             try {
-                String jsonResponse = fetchDataFromUrl(GITHUB_PAGES_BASE_URL + TIMELINE_ENDPOINT);
-                int newEvents = processTimelineJson(jsonResponse);
+                int newEvents = syncEndpoint(TIMELINE_ENDPOINT, TIMELINE_WRAPPER, this::readTimelineEvents).changedRows;
 
                 // Run callback on main thread
                 if (context instanceof android.app.Activity) {
@@ -96,170 +125,449 @@ public class NetworkDataManager {
     }
 
     /**
-     * Fetch both messages and timeline events from GitHub Pages
+     * Fetch both messages and timeline events from GitHub Pages.
+     * The endpoints are fetched in parallel, each parsed into the database while it downloads,
+     * so the sync takes about as long as the slowest endpoint. The callback gets the combined
+     * {@link SyncResult} and then onSuccess, or onError if every endpoint failed.
      */
     public void fetchAndUpdateAll(DataUpdateCallback callback) {
-        executor.execute(() -> {
-            try {
-                int totalNewItems = 0;
-                
-                // Fetch messages
-                try {
-                    String messagesResponse = fetchDataFromUrl(GITHUB_PAGES_BASE_URL + MESSAGES_ENDPOINT);
-                    totalNewItems += processMessagesJson(messagesResponse);
-                } catch (Exception e) {
-                    Log.w(TAG, "Could not fetch messages: " + e.getMessage());
+        String[] endpoints = {MESSAGES_ENDPOINT, TIMELINE_ENDPOINT};
+        SyncResult.Endpoint[] results = new SyncResult.Endpoint[endpoints.length];
+        AtomicInteger remaining = new AtomicInteger(endpoints.length);
+        long start = SystemClock.elapsedRealtime();
+
+        for (int i = 0; i < endpoints.length; i++) {
+            final int index = i;
+            executor.execute(() -> {
+                results[index] = syncEndpointSafely(endpoints[index]);
+                // Whoever finishes last reports - no thread is blocked waiting for the others
+                if (remaining.decrementAndGet() > 0) {
+                    return;
                 }
-                
-                // Fetch timeline events
-                try {
-                    String timelineResponse = fetchDataFromUrl(GITHUB_PAGES_BASE_URL + TIMELINE_ENDPOINT);
-                    totalNewItems += processTimelineJson(timelineResponse);
-                } catch (Exception e) {
-                    Log.w(TAG, "Could not fetch timeline events: " + e.getMessage());
+                SyncResult result = new SyncResult(results, SystemClock.elapsedRealtime() - start);
+                Log.d(TAG, "Sync finished: " + result);
+                if (context instanceof android.app.Activity) {
+                    ((android.app.Activity) context).runOnUiThread(() -> {
+                        callback.onSyncResult(result);
+                        if (result.allFailed()) {
+                            callback.onError(result.getFirstError());
+                        } else {
+                            callback.onSuccess(result.getChangedRows());
+                        }
+                    });
                 }
+            });
+        }
+    }
 
-                // Run callback on main thread
-                final int newItemsCount = totalNewItems;
-                if (context instanceof android.app.Activity) {
-                    ((android.app.Activity) context).runOnUiThread(() ->
-                            callback.onSuccess(newItemsCount));
+    // Never throws - failures become a FAILED entry
+    private SyncResult.Endpoint syncEndpointSafely(String endpoint) {
+        long start = SystemClock.elapsedRealtime();
+        try {
+            return MESSAGES_ENDPOINT.equals(endpoint)
+                    ? syncEndpoint(MESSAGES_ENDPOINT, MESSAGES_WRAPPER, this::readMessages)
+                    : syncEndpoint(TIMELINE_ENDPOINT, TIMELINE_WRAPPER, this::readTimelineEvents);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not fetch " + endpoint + ": " + e.getMessage());
+            return new SyncResult.Endpoint(endpoint, SyncResult.Status.FAILED, 0,
+                    SystemClock.elapsedRealtime() - start, getUserFriendlyError(e));
+        }
+    }
+
+    /**
+     * Conditional, gzip-compressed GET of an endpoint, parsed straight from the stream into the database.
+     * The decoded body is copied into the response cache while it is read. When the network is
+     * unavailable the last cached body is replayed instead.
+     * A fully read response leaves its connection open for keep-alive reuse by the next request.
+     */
+    private SyncResult.Endpoint syncEndpoint(String endpoint, String wrapperKey, RecordArrayReader recordReader)
+            throws IOException {
+        // Every attempt is recorded, failed ones with their error
+        SyncMetrics.Sample sample = SyncMetrics.start("pages_" + endpoint);
+        try {
+            SyncResult.Endpoint result = syncEndpoint(endpoint, wrapperKey, recordReader, sample);
+            metrics.record(sample.finish(null));
+            return result;
+        } catch (IOException | RuntimeException e) {
+            metrics.record(sample.finish(e.getClass().getSimpleName() + ": " + e.getMessage()));
+            throw e;
+        }
+    }
+
+    private SyncResult.Endpoint syncEndpoint(String endpoint, String wrapperKey, RecordArrayReader recordReader,
+                                             SyncMetrics.Sample sample) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        // Validators only make sense while the body they describe can still be replayed
+        ResponseCache.Entry cached = responseCache.get(endpoint);
+        HttpURLConnection connection = openConnection(endpoint, cached);
+        boolean reusable = false;
+        try {
+            int responseCode;
+            try {
+                responseCode = connection.getResponseCode();
+            } catch (java.net.UnknownHostException | java.net.ConnectException
+                     | java.net.SocketTimeoutException e) {
+                if (cached == null) {
+                    throw e;
+                }
+                Log.w(TAG, "Offline - replaying cached " + endpoint + " (" + e.getClass().getSimpleName() + ")");
+                sample.networkDone();
+                try (InputStream in = responseCache.openBody(endpoint)) {
+                    int changed = readPayload(in, wrapperKey, recordReader, sample);
+                    sample.bytes = 0; // Nothing transferred
+                    return new SyncResult.Endpoint(endpoint, SyncResult.Status.REPLAYED, changed,
+                            SystemClock.elapsedRealtime() - start, null);
                 }
+            }
+            sample.networkDone();
+
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                Log.d(TAG, endpoint + " not modified - skipping parse");
+                responseCache.touch(endpoint);
+                reusable = true; // No body to read
+                sample.bytes = 0;
+                return new SyncResult.Endpoint(endpoint, SyncResult.Status.NOT_MODIFIED, 0,
+                        SystemClock.elapsedRealtime() - start, null);
+            } else if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP Error: " + responseCode);
+            }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error fetching data", e);
-                if (context instanceof android.app.Activity) {
-                    ((android.app.Activity) context).runOnUiThread(() ->
-                            callback.onError(e.getMessage()));
+            // Counted before decompression - what actually went over the network
+            CountingInputStream counted = new CountingInputStream(connection.getInputStream());
+            InputStream in = counted;
+            if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+                in = new GZIPInputStream(in);
+            }
+            ResponseCache.Editor editor = responseCache.edit(endpoint);
+            if (editor != null) {
+                in = new TeeInputStream(in, editor);
+            }
+            boolean complete = false;
+            try {
+                int changed = readPayload(in, wrapperKey, recordReader, sample);
+                // The parser stops at the closing bracket - the cached copy and keep-alive need the rest
+                byte[] buffer = new byte[1024];
+                while (in.read(buffer) != -1) {
+                    // Drain
+                }
+                complete = true;
+                reusable = true;
+                return new SyncResult.Endpoint(endpoint, SyncResult.Status.UPDATED, changed,
+                        SystemClock.elapsedRealtime() - start, null);
+            } finally {
+                sample.bytes = counted.count;
+                in.close();
+                if (editor != null) {
+                    if (complete) {
+                        editor.commit(connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+                    } else {
+                        editor.abort();
+                    }
                 }
             }
-        });
+        } finally {
+            // disconnect() would close the socket, so it is only used for failed requests
+            if (!reusable) {
+                connection.disconnect();
+            }
+        }
     }
 
-    private String fetchDataFromUrl(String urlString) throws IOException {
-        URL url = new URL(urlString);
+    private HttpURLConnection openConnection(String endpoint, ResponseCache.Entry cached) throws IOException {
+        URL url = new URL(GITHUB_PAGES_BASE_URL + endpoint);
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(10000); // 10 seconds
+        connection.setReadTimeout(10000);
+        // Asked for explicitly, so the stream is decoded here and not by the platform
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (cached != null) {
+            if (cached.etag != null) {
+                connection.setRequestProperty("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+            }
+        }
+        return connection;
+    }
 
-        try {
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(10000); // 10 seconds
-            connection.setReadTimeout(10000);
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                return response.toString();
+    /**
+     * Parse a payload that is either a bare record array or an object holding it under wrapperKey,
+     * in a single pass. Other members of the object are skipped without being materialized.
+     */
+    private static int readPayload(InputStream in, String wrapperKey, RecordArrayReader recordReader,
+                                   SyncMetrics.Sample sample) throws IOException {
+        // Not closed here - the caller owns the stream
+        JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return recordReader.read(reader, sample);
+        }
+
+        int changed = -1;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (changed < 0 && name.equals(wrapperKey) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                changed = recordReader.read(reader, sample);
             } else {
-                throw new IOException("HTTP Error: " + responseCode);
+                reader.skipValue();
             }
-        } finally {
-            connection.disconnect();
         }
+        reader.endObject();
+        if (changed < 0) {
+            throw new MalformedJsonException("Payload has no \"" + wrapperKey + "\" array");
+        }
+        return changed;
     }
 
-    private int processMessagesJson(String jsonString) throws JSONException {
-        JSONArray messagesArray;
-        
-        // Try to parse as direct array first, then as object with "messages" field
-        try {
-            messagesArray = new JSONArray(jsonString);
-        } catch (JSONException e) {
-            JSONObject rootObject = new JSONObject(jsonString);
-            messagesArray = rootObject.getJSONArray("messages");
+    private int readMessages(JsonReader reader, SyncMetrics.Sample sample) throws IOException {
+        List<Message> batch = new ArrayList<>(BATCH_SIZE);
+        int changed = 0;
+        int read = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Message message = readMessage(reader);
+            if (message == null) {
+                continue;
+            }
+            batch.add(message);
+            read++;
+            if (batch.size() == BATCH_SIZE) {
+                changed += flushMessages(batch, sample);
+            }
         }
+        reader.endArray();
+        changed += flushMessages(batch, sample);
+
+        Log.d(TAG, "Messages sync: " + read + " read, " + changed + " new or changed");
+        return changed;
+    }
 
-        int newMessagesCount = 0;
+    private Message readMessage(JsonReader reader) throws IOException {
+        String date = null;
+        String messageType = null;
+        String type = null;
+        String text = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "date":
+                    date = reader.nextString();
+                    break;
+                case "messageType":
+                    messageType = reader.nextString();
+                    break;
+                case "type":
+                    type = reader.nextString();
+                    break;
+                case "message":
+                    text = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
 
-        for (int i = 0; i < messagesArray.length(); i++) {
-            JSONObject messageObj = messagesArray.getJSONObject(i);
+        if (date == null || text == null) {
+            Log.w(TAG, "Skipping message without date or text");
+            return null;
+        }
+        if (messageType == null) {
+            messageType = type != null ? type : "love_note";
+        }
+        // Convert ISO date to your format (yyyy-MM-dd)
+        return new Message(text, messageType, convertIsoDateToLocal(date));
+    }
 
-            String date = messageObj.getString("date");
-            String messageType = messageObj.optString("messageType", messageObj.optString("type", "love_note"));
-            String message = messageObj.getString("message");
+    // One transaction per batch - unchanged days cost no statement at all
+    private int flushMessages(List<Message> batch, SyncMetrics.Sample sample) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long writeStart = System.nanoTime();
+        UpsertResult result = dbHelper.upsertMessages(batch);
+        sample.addWrite(result, writeStart);
+        batch.clear();
+        return result.inserted + result.updated;
+    }
 
-            // Convert ISO date to your format (yyyy-MM-dd)
-            String formattedDate = convertIsoDateToLocal(date);
+    private int readTimelineEvents(JsonReader reader, SyncMetrics.Sample sample) throws IOException {
+        List<TimelineEvent> batch = new ArrayList<>(BATCH_SIZE);
+        int changed = 0;
+        int read = 0;
 
-            // Check if message already exists for this date
-            if (!messageExistsForDate(formattedDate)) {
-                long result = dbHelper.insertMessage(message, messageType, formattedDate);
-                if (result > 0) {
-                    newMessagesCount++;
-                    Log.d(TAG, "Inserted new message for date: " + formattedDate);
-                }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            TimelineEvent event = readTimelineEvent(reader);
+            if (event == null) {
+                continue;
+            }
+            batch.add(event);
+            read++;
+            if (batch.size() == BATCH_SIZE) {
+                changed += flushTimelineEvents(batch, sample);
             }
         }
+        reader.endArray();
+        changed += flushTimelineEvents(batch, sample);
 
-        return newMessagesCount;
+        Log.d(TAG, "Timeline sync: " + read + " read, " + changed + " new or changed");
+        return changed;
     }
 
-    private int processTimelineJson(String jsonString) throws JSONException {
-        Log.d(TAG, "Processing timeline JSON: " + jsonString.substring(0, Math.min(200, jsonString.length())));
-        
-        JSONArray timelineArray;
-        
-        // Try to parse as direct array first, then as object with "timeline_events" field
-        try {
-            timelineArray = new JSONArray(jsonString);
-        } catch (JSONException e) {
-            JSONObject rootObject = new JSONObject(jsonString);
-            timelineArray = rootObject.getJSONArray("timeline_events");
+    private TimelineEvent readTimelineEvent(JsonReader reader) throws IOException {
+        String date = null;
+        String type = null;
+        String title = null;
+        String description = null;
+        List<String> photos = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "date":
+                    date = reader.nextString();
+                    break;
+                case "type":
+                    type = reader.nextString();
+                    break;
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "description":
+                    description = reader.nextString();
+                    break;
+                case "photos":
+                    photos = SeedImporter.readPhotos(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
         }
-        
-        int newEventsCount = 0;
-        
-        Log.d(TAG, "Found " + timelineArray.length() + " timeline events in JSON");
-
-        for (int i = 0; i < timelineArray.length(); i++) {
-            JSONObject eventObj = timelineArray.getJSONObject(i);
-
-            String date = eventObj.getString("date");
-            String eventType = eventObj.getString("type");
-            String title = eventObj.getString("title");
-            String description = eventObj.getString("description");
-            String photos = eventObj.optString("photos", "");
-            
-            // Convert ISO date to your format (yyyy-MM-dd)
-            String formattedDate = convertIsoDateToLocal(date);
-
-            // Check if timeline event already exists for this date and title
-            if (!dbHelper.hasTimelineEventForDateAndTitle(formattedDate, title)) {
-                long result = dbHelper.insertTimelineEvent(formattedDate, title, description, photos, eventType);
-                if (result > 0) {
-                    newEventsCount++;
-                    Log.d(TAG, "Inserted new timeline event: " + title + " for date: " + formattedDate);
-                } else {
-                    Log.w(TAG, "Failed to insert timeline event: " + title);
-                }
-            } else {
-                Log.d(TAG, "Timeline event already exists: " + title + " for date: " + formattedDate);
+        reader.endObject();
+
+        if (date == null || title == null) {
+            Log.w(TAG, "Skipping timeline event without date or title");
+            return null;
+        }
+        // Convert ISO date to your format (yyyy-MM-dd)
+        TimelineEvent event = new TimelineEvent(convertIsoDateToLocal(date), title, description, null,
+                type != null ? type : TimelineEvent.DEFAULT_TYPE);
+        if (photos != null) {
+            event.setPhotoList(photos);
+        }
+        return event;
+    }
+
+    private int flushTimelineEvents(List<TimelineEvent> batch, SyncMetrics.Sample sample) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long writeStart = System.nanoTime();
+        UpsertResult result = dbHelper.upsertTimelineEvents(batch);
+        sample.addWrite(result, writeStart);
+        batch.clear();
+        return result.inserted + result.updated;
+    }
+
+    /**
+     * Counts the bytes read through it.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
             }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
         }
-        
-        return newEventsCount;
     }
 
-    private String convertIsoDateToLocal(String isoDate) {
-        try {
-            // Simple conversion from "2025-09-03T10:30:00Z" to "2025-09-03"
-            return isoDate.substring(0, 10);
-        } catch (Exception e) {
-            Log.e(TAG, "Error converting date: " + isoDate, e);
-            return isoDate; // Return original if conversion fails
+    /**
+     * Copies every byte read from the response into a cache entry.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+        private final ResponseCache.Editor editor;
+
+        TeeInputStream(InputStream in, ResponseCache.Editor editor) {
+            super(in);
+            this.editor = editor;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                editor.write(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                editor.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Route through read() so skipped bytes are cached too
+            byte[] buffer = new byte[(int) Math.min(n, 1024)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
         }
     }
 
-    private boolean messageExistsForDate(String date) {
-        // You'll need to add this method to DatabaseHelper
-        return dbHelper.hasMessageForDate(date);
+    private String convertIsoDateToLocal(String isoDate) {
+        // Conversion from "2025-09-03T10:30:00Z" to "2025-09-03" via the epoch-day key
+        long epochDay = EpochDays.parse(isoDate);
+        if (epochDay == EpochDays.NONE) {
+            Log.e(TAG, "Error converting date: " + isoDate);
+            return isoDate; // Return original if conversion fails
+        }
+        return EpochDays.format(epochDay);
     }
 
     private String getUserFriendlyError(Exception e) {
@@ -268,9 +576,12 @@ public class NetworkDataManager {
             return "Keine Internetverbindung. Bitte versuche es später noch einmal.";
         } else if (e instanceof java.net.SocketTimeoutException) {
             return "Die Verbindung ist zu langsam. Bitte versuche es später noch einmal.";
-        } else if (e instanceof java.io.IOException && e.getMessage().contains("HTTP Error: 404")) {
+        } else if (e instanceof java.io.IOException && e.getMessage() != null
+                && e.getMessage().contains("HTTP Error: 404")) {
             return "Die Daten konnten nicht gefunden werden.";
-        } else if (e instanceof org.json.JSONException) {
+        } else if (e instanceof org.json.JSONException || e instanceof MalformedJsonException
+                || e instanceof IllegalStateException) {
+            // IllegalStateException is how JsonReader reports an unexpected token
             return "Fehler beim Laden der Daten. Bitte versuche es später noch einmal.";
         } else {
             return "Ein unbekannter Fehler ist aufgetreten. Bitte versuche es später noch einmal.";
@@ -282,9 +593,16 @@ public class NetworkDataManager {
      */
     public void testTimelineConnection(DataUpdateCallback callback) {
         executor.execute(() -> {
+            // Unconditional request, and only the status line is read
+            HttpURLConnection connection = null;
             try {
-                String response = fetchDataFromUrl(GITHUB_PAGES_BASE_URL + TIMELINE_ENDPOINT);
-                Log.d(TAG, "Timeline connection test successful. Response length: " + response.length());
+                connection = openConnection(TIMELINE_ENDPOINT, null);
+                int responseCode = connection.getResponseCode();
+                if (responseCode != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("HTTP Error: " + responseCode);
+                }
+                Log.d(TAG, "Timeline connection test successful. Content length: "
+                        + connection.getContentLength());
                 
                 if (context instanceof android.app.Activity) {
                     ((android.app.Activity) context).runOnUiThread(() ->
@@ -297,6 +615,10 @@ public class NetworkDataManager {
                     ((android.app.Activity) context).runOnUiThread(() ->
                             callback.onError(error));
                 }
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
             }
         });
     }
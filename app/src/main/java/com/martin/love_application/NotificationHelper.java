@@ -37,6 +37,14 @@ public class NotificationHelper extends BroadcastReceiver {
         showDailyNotification(context);
     }
 
+    public static int getNotificationHour(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getInt(NOTIFICATION_TIME_HOUR, 22);
+    }
+
+    public static int getNotificationMinute(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getInt(NOTIFICATION_TIME_MINUTE, 0);
+    }
+
     public void scheduleDailyNotification() {
         // Get user's preferred notification time (default to 10:00 PM)
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
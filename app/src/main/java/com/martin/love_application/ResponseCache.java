@@ -0,0 +1,190 @@
+package com.martin.love_application;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Size-bounded disk cache for GitHub Pages responses, together with their ETag / Last-Modified validators.
+ * Bodies live in the app's cache directory, so the system may drop them - validators are only
+ * used while their body is still there, which keeps a 304 answer replayable.
+ */
+class ResponseCache {
+
+    private static final String TAG = "ResponseCache";
+    private static final String PREFS_NAME = "http_cache";
+    private static final String DIRECTORY = "http_cache";
+    private static final String SUFFIX_ETAG = "_etag";
+    private static final String SUFFIX_LAST_MODIFIED = "_last_modified";
+
+    /**
+     * Validators of a cached response whose body is still on disk.
+     */
+    static final class Entry {
+        final String etag;
+        final String lastModified;
+
+        Entry(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * An entry being written. Nothing becomes visible until {@link #commit}.
+     */
+    final class Editor {
+        private final String key;
+        private final File tmpFile;
+        private final OutputStream out;
+        private boolean failed;
+
+        private Editor(String key, File tmpFile) throws IOException {
+            this.key = key;
+            this.tmpFile = tmpFile;
+            this.out = new FileOutputStream(tmpFile);
+        }
+
+        /**
+         * Append body bytes. A write error only disables caching - the caller's read goes on.
+         */
+        void write(byte[] buffer, int offset, int length) {
+            if (failed) {
+                return;
+            }
+            try {
+                out.write(buffer, offset, length);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not cache response " + key + ": " + e.getMessage());
+                failed = true;
+            }
+        }
+
+        /**
+         * Publish the written body with its validators.
+         */
+        void commit(String etag, String lastModified) {
+            closeQuietly();
+            synchronized (ResponseCache.this) {
+                // Rename, so a crash never leaves a truncated body behind
+                if (failed || tmpFile.length() > maxBytes || !tmpFile.renameTo(new File(directory, key))) {
+                    tmpFile.delete();
+                    remove(key); // An older copy would be stale
+                    return;
+                }
+                prefs.edit()
+                        .putString(key + SUFFIX_ETAG, etag)
+                        .putString(key + SUFFIX_LAST_MODIFIED, lastModified)
+                        .apply();
+                trimToSize(key);
+            }
+        }
+
+        void abort() {
+            closeQuietly();
+            tmpFile.delete();
+        }
+
+        private void closeQuietly() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+    }
+
+    private final File directory;
+    private final SharedPreferences prefs;
+    private final long maxBytes;
+
+    ResponseCache(Context context, long maxBytes) {
+        this.directory = new File(context.getCacheDir(), DIRECTORY);
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return The validators for the key, or null if no body is cached
+     */
+    synchronized Entry get(String key) {
+        if (!new File(directory, key).isFile()) {
+            return null;
+        }
+        return new Entry(prefs.getString(key + SUFFIX_ETAG, null),
+                prefs.getString(key + SUFFIX_LAST_MODIFIED, null));
+    }
+
+    /**
+     * Open the cached body for streaming.
+     */
+    synchronized InputStream openBody(String key) throws IOException {
+        return new FileInputStream(new File(directory, key));
+    }
+
+    /**
+     * Start writing a new body for the key, or null if the cache directory is unavailable.
+     */
+    Editor edit(String key) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return null;
+        }
+        try {
+            return new Editor(key, new File(directory, key + ".tmp"));
+        } catch (IOException e) {
+            Log.w(TAG, "Could not cache response " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Mark a cached entry as just used, e.g. after the server confirmed it with a 304.
+     */
+    synchronized void touch(String key) {
+        File file = new File(directory, key);
+        if (file.isFile()) {
+            file.setLastModified(System.currentTimeMillis());
+        }
+    }
+
+    synchronized void remove(String key) {
+        new File(directory, key).delete();
+        prefs.edit()
+                .remove(key + SUFFIX_ETAG)
+                .remove(key + SUFFIX_LAST_MODIFIED)
+                .apply();
+    }
+
+    // Least recently stored or confirmed entries go first; the entry just written is kept
+    private void trimToSize(String keepKey) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        while (total > maxBytes) {
+            File oldest = null;
+            for (File file : files) {
+                if (file.exists() && !file.getName().equals(keepKey) && !file.getName().endsWith(".tmp")
+                        && (oldest == null || file.lastModified() < oldest.lastModified())) {
+                    oldest = file;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            total -= oldest.length();
+            remove(oldest.getName());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.martin.love_application;
+
+import android.content.res.AssetManager;
+import android.database.sqlite.SQLiteStatement;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the bundled seed assets into the database.
+ * Each asset is read once in bounded memory and written through pre-compiled statements;
+ * the caller owns the transaction so a whole import commits at once.
+ */
+class SeedImporter {
+
+    private static final String TAG = "SeedImporter";
+
+    // How often progress is reported while importing
+    private static final int PROGRESS_INTERVAL = 100;
+
+    interface ProgressListener {
+        // Called every PROGRESS_INTERVAL rows and once at the end of each asset
+        void onProgress(String assetName, int importedRows);
+    }
+
+    private final AssetManager assets;
+    private final ProgressListener listener;
+
+    SeedImporter(AssetManager assets, ProgressListener listener) {
+        this.assets = assets;
+        this.listener = listener;
+    }
+
+    /**
+     * Import "type|text" lines, one message per day starting at firstEpochDay.
+     * @param insert Statement binding (text, type, date, epoch day)
+     * @return Number of imported messages
+     */
+    int importMessages(String assetName, SQLiteStatement insert, long firstEpochDay) throws IOException {
+        int imported = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(assets.open(assetName), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] message = parseMessageLine(line);
+                if (message == null) {
+                    continue;
+                }
+
+                long epochDay = firstEpochDay + imported;
+                insert.clearBindings();
+                insert.bindString(1, message[1]);
+                insert.bindString(2, message[0]);
+                insert.bindString(3, EpochDays.format(epochDay));
+                insert.bindLong(4, epochDay);
+                insert.executeInsert();
+
+                imported++;
+                reportProgress(assetName, imported);
+            }
+        }
+        listener.onProgress(assetName, imported);
+        return imported;
+    }
+
+    /**
+     * Split a "type|text" line into {type, text}.
+     * @return null unless the line has exactly one separator and a non-empty text
+     */
+    static String[] parseMessageLine(String line) {
+        int separator = line.indexOf('|');
+        if (separator < 0 || separator == line.length() - 1
+                || line.indexOf('|', separator + 1) >= 0) {
+            return null;
+        }
+        return new String[]{line.substring(0, separator), line.substring(separator + 1)};
+    }
+
+    /**
+     * Import a JSON array of timeline events with the pull parser.
+     * @param insertEvent Statement binding (date, title, description, type, epoch day)
+     * @param insertPhoto Photo statement as used by {@link DatabaseHelper#insertPhotos}
+     * @return Number of imported events
+     */
+    int importTimelineEvents(String assetName, SQLiteStatement insertEvent, SQLiteStatement insertPhoto)
+            throws IOException {
+        int imported = 0;
+        try (InputStream in = assets.open(assetName);
+             JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (readTimelineEvent(reader, insertEvent, insertPhoto)) {
+                    imported++;
+                    reportProgress(assetName, imported);
+                }
+            }
+            reader.endArray();
+        }
+        listener.onProgress(assetName, imported);
+        return imported;
+    }
+
+    private boolean readTimelineEvent(JsonReader reader, SQLiteStatement insertEvent,
+                                      SQLiteStatement insertPhoto) throws IOException {
+        String date = null;
+        String title = null;
+        String description = null;
+        String type = null;
+        List<String> photos = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "date":
+                    date = reader.nextString();
+                    break;
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "description":
+                    description = reader.nextString();
+                    break;
+                case "type":
+                    type = reader.nextString();
+                    break;
+                case "photos":
+                    photos = readPhotos(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (date == null || title == null) {
+            Log.w(TAG, "Skipping timeline event without date or title");
+            return false;
+        }
+
+        insertEvent.clearBindings();
+        insertEvent.bindString(1, date);
+        insertEvent.bindString(2, title);
+        if (description != null) insertEvent.bindString(3, description);
+        insertEvent.bindString(4, type != null ? type : TimelineEvent.DEFAULT_TYPE);
+        long epochDay = EpochDays.parse(date);
+        if (epochDay != EpochDays.NONE) insertEvent.bindLong(5, epochDay);
+        long eventId = insertEvent.executeInsert();
+        if (eventId == -1) {
+            return false;
+        }
+        if (photos != null) {
+            DatabaseHelper.insertPhotos(insertPhoto, eventId, photos);
+        }
+        return true;
+    }
+
+    // Photos may be a comma-separated string or an array of paths - also used for synced payloads
+    static List<String> readPhotos(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.STRING) {
+            return TimelineEvent.parsePhotoList(reader.nextString());
+        }
+        List<String> photos = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String path = reader.nextString().trim();
+            if (!path.isEmpty()) {
+                photos.add(path);
+            }
+        }
+        reader.endArray();
+        return photos;
+    }
+
+    private void reportProgress(String assetName, int importedRows) {
+        if (importedRows % PROGRESS_INTERVAL == 0) {
+            listener.onProgress(assetName, importedRows);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.martin.love_application;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide single-flight Firebase sync. A request made while a sync is running joins it
+ * instead of starting another download, and every caller receives the same result.
+ * Also owns live sync, which shares the one FirebaseDataManager with the one-shot syncs.
+ * All methods must be called on the main thread, where all callbacks are delivered as well.
+ */
+public class SyncCoordinator {
+
+    private static final String TAG = "SyncCoordinator";
+
+    private static final String PREFS_NAME = "love_app_prefs";
+    private static final String KEY_LAST_SYNC_TIME = "last_sync_time";
+
+    // A Firebase query that never answers must not keep the sync running forever
+    private static final long SYNC_TIMEOUT_MS = 30 * 1000;
+    private static final String TIMEOUT_ERROR = "Zeitüberschreitung";
+
+    // Rotations and switches between activities briefly stop every activity - keep listening across them
+    private static final long LIVE_SYNC_STOP_DELAY_MS = 1000;
+
+    private static SyncCoordinator instance;
+
+    /**
+     * Outcome of one sync, shared by all callers that joined it.
+     */
+    public static final class Result {
+        public final int newMessages;
+        public final int newEvents;
+        // Null when the part succeeded
+        public final String messagesError;
+        public final String timelineError;
+
+        Result(int newMessages, int newEvents, String messagesError, String timelineError) {
+            this.newMessages = newMessages;
+            this.newEvents = newEvents;
+            this.messagesError = messagesError;
+            this.timelineError = timelineError;
+        }
+
+        public boolean isSuccess() {
+            return messagesError == null && timelineError == null;
+        }
+    }
+
+    public interface Callback {
+        void onSyncFinished(Result result);
+    }
+
+    public interface StateListener {
+        void onSyncStateChanged(boolean running);
+    }
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<StateListener> stateListeners = new CopyOnWriteArrayList<>();
+    private FirebaseDataManager firebaseManager;
+    // Activities between onStart and onStop, counted by LoveApplication
+    private int startedActivities;
+    private final Runnable stopLiveSync = () -> getFirebaseManager().stopLiveSync();
+
+    // State of the sync in flight, null while idle. A timed-out flight stays here until
+    // its writes have finished, so no second sync writes the same tables next to it.
+    private Flight flight;
+
+    private final class Flight {
+        final List<Callback> callbacks = new ArrayList<>();
+        final Runnable timeout = this::onTimeout;
+        boolean messagesDone;
+        boolean timelineDone;
+        boolean timedOut;
+        int newMessages;
+        int newEvents;
+        String messagesError;
+        String timelineError;
+
+        void onTimeout() {
+            timedOut = true;
+            // Queries still waiting for Firebase fail right away; a part already writing runs to the end
+            firebaseManager.cancelPendingSyncs(TIMEOUT_ERROR);
+            if (flight != this) {
+                return; // Every part was still waiting, so the cancel finished the flight
+            }
+            Log.w(TAG, "Sync timed out - waiting for running writes before the next sync can start");
+            Result result = new Result(newMessages, newEvents,
+                    messagesDone ? messagesError : TIMEOUT_ERROR,
+                    timelineDone ? timelineError : TIMEOUT_ERROR);
+            List<Callback> waiting = new ArrayList<>(callbacks);
+            callbacks.clear();
+            for (Callback callback : waiting) {
+                callback.onSyncFinished(result);
+            }
+        }
+    }
+
+    public static synchronized SyncCoordinator getInstance(Context context) {
+        if (instance == null) {
+            instance = new SyncCoordinator(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SyncCoordinator(Context context) {
+        this.context = context;
+    }
+
+    public boolean isRunning() {
+        return flight != null;
+    }
+
+    /**
+     * Start a sync, or join the one already running.
+     * @param callback Receives the result, may be null
+     */
+    public void requestSync(Callback callback) {
+        if (flight != null) {
+            // Also after a timeout: the late result is the first one that reflects the database again
+            Log.d(TAG, "Sync already running - joining it");
+            if (callback != null) {
+                flight.callbacks.add(callback);
+            }
+            return;
+        }
+
+        Flight current = new Flight();
+        if (callback != null) {
+            current.callbacks.add(callback);
+        }
+        flight = current;
+        notifyState(true);
+        mainHandler.postDelayed(current.timeout, SYNC_TIMEOUT_MS);
+        Log.d(TAG, "Sync started");
+
+        FirebaseDataManager manager = getFirebaseManager();
+        manager.fetchAndUpdateMessages(new FirebaseDataManager.DataUpdateCallback() {
+            @Override
+            public void onSuccess(int newItemsCount) {
+                current.newMessages = newItemsCount;
+                current.messagesDone = true;
+                onPartFinished(current);
+            }
+
+            @Override
+            public void onError(String error) {
+                current.messagesError = error;
+                current.messagesDone = true;
+                onPartFinished(current);
+            }
+        });
+        manager.fetchAndUpdateTimeline(new FirebaseDataManager.DataUpdateCallback() {
+            @Override
+            public void onSuccess(int newItemsCount) {
+                current.newEvents = newItemsCount;
+                current.timelineDone = true;
+                onPartFinished(current);
+            }
+
+            @Override
+            public void onError(String error) {
+                current.timelineError = error;
+                current.timelineDone = true;
+                onPartFinished(current);
+            }
+        });
+    }
+
+    /**
+     * Register for running / idle changes. The listener is called right away with the current state.
+     */
+    public void addStateListener(StateListener listener) {
+        stateListeners.add(listener);
+        listener.onSyncStateChanged(isRunning());
+    }
+
+    public void removeStateListener(StateListener listener) {
+        stateListeners.remove(listener);
+    }
+
+    /**
+     * Turn live sync on or off. It runs while any activity of the app is started.
+     */
+    public void setLiveSyncEnabled(boolean enabled) {
+        FirebaseDataManager.setLiveSyncEnabled(context, enabled);
+        if (!enabled) {
+            mainHandler.removeCallbacks(stopLiveSync);
+            getFirebaseManager().stopLiveSync();
+        } else if (startedActivities > 0) {
+            startLiveSync();
+        }
+    }
+
+    void onActivityStarted() {
+        mainHandler.removeCallbacks(stopLiveSync);
+        if (++startedActivities == 1 && FirebaseDataManager.isLiveSyncEnabled(context)) {
+            startLiveSync();
+        }
+    }
+
+    void onActivityStopped() {
+        if (--startedActivities == 0) {
+            mainHandler.postDelayed(stopLiveSync, LIVE_SYNC_STOP_DELAY_MS);
+        }
+    }
+
+    private void startLiveSync() {
+        // Screens observe the tables, so the listener only logs
+        getFirebaseManager().startLiveSync(changedCount -> Log.d(TAG, "⚡ Live sync - " + changedCount + " Änderungen"));
+    }
+
+    public static long getLastSyncTime(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getLong(KEY_LAST_SYNC_TIME, 0);
+    }
+
+    private FirebaseDataManager getFirebaseManager() {
+        if (firebaseManager == null) {
+            // Messages use the stored window setting, see FirebaseDataManager.isMessageWindowEnabled
+            firebaseManager = new FirebaseDataManager(context);
+        }
+        return firebaseManager;
+    }
+
+    private void onPartFinished(Flight finished) {
+        if (finished.messagesDone && finished.timelineDone) {
+            finish(finished);
+        }
+    }
+
+    private void finish(Flight finished) {
+        if (flight != finished) {
+            return;
+        }
+        flight = null;
+        mainHandler.removeCallbacks(finished.timeout);
+
+        Result result = new Result(finished.newMessages, finished.newEvents,
+                finished.messagesError, finished.timelineError);
+        if (result.isSuccess()) {
+            context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                    .putLong(KEY_LAST_SYNC_TIME, System.currentTimeMillis())
+                    .apply();
+        }
+        Log.d(TAG, "Sync finished" + (finished.timedOut ? " after timeout" : "") + " - " + result.newMessages + " messages, " + result.newEvents + " events"
+                + (result.isSuccess() ? "" : " (errors: " + result.messagesError + ", " + result.timelineError + ")"));
+
+        notifyState(false);
+        for (Callback callback : finished.callbacks) {
+            callback.onSyncFinished(result);
+        }
+    }
+
+    private void notifyState(boolean running) {
+        for (StateListener listener : stateListeners) {
+            listener.onSyncStateChanged(running);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.martin.love_application;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.materialswitch.MaterialSwitch;
+
+/**
+ * Hidden screen with the recorded sync timings - opened by long-pressing the day counter.
+ */
+public class SyncDiagnosticsActivity extends AppCompatActivity {
+
+    private SyncMetrics metrics;
+    private TextView reportText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_sync_diagnostics);
+
+        metrics = SyncMetrics.getInstance(this);
+        reportText = findViewById(R.id.diagnostics_report);
+
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        toolbar.setNavigationOnClickListener(v -> finish());
+
+        MaterialButton exportButton = findViewById(R.id.diagnostics_export_button);
+        exportButton.setOnClickListener(v -> exportMetrics());
+        MaterialButton clearButton = findViewById(R.id.diagnostics_clear_button);
+        clearButton.setOnClickListener(v -> {
+            metrics.clear();
+            showReport();
+            Toast.makeText(this, "Messungen gelöscht", Toast.LENGTH_SHORT).show();
+        });
+
+        MaterialSwitch windowSwitch = findViewById(R.id.diagnostics_message_window_switch);
+        windowSwitch.setChecked(FirebaseDataManager.isMessageWindowEnabled(this));
+        windowSwitch.setOnCheckedChangeListener((button, checked) -> {
+            FirebaseDataManager.setMessageWindowEnabled(this, checked);
+            Toast.makeText(this, "Gilt ab der nächsten Synchronisation", Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showReport();
+    }
+
+    private void showReport() {
+        reportText.setText(metrics.buildReport());
+    }
+
+    // Plain text share - a few hundred lines at most, so no file provider is needed
+    private void exportMetrics() {
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("text/plain");
+        intent.putExtra(Intent.EXTRA_SUBJECT, "Love App Sync-Messungen");
+        intent.putExtra(Intent.EXTRA_TEXT, metrics.exportTsv());
+        startActivity(Intent.createChooser(intent, "Messungen exportieren"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.martin.love_application;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import com.google.firebase.FirebaseApp;
+
+import java.util.Calendar;
+
+/**
+ * Background Firebase sync, run by JobScheduler so opening the app never waits on the network.
+ * The daily job runs overnight, preferring an unmetered network, and is due at the latest an hour
+ * before the evening notification. Failed runs are retried with exponential backoff.
+ * The sync itself goes through {@link SyncCoordinator}, so it merges with a sync started in the app.
+ */
+public class SyncJobService extends JobService {
+
+    private static final String TAG = "SyncJobService";
+    private static final int JOB_ID = 2001;
+
+    // Earliest start of the daily run - the device is usually idle and on Wi-Fi by then
+    private static final int SYNC_HOUR = 3;
+    // Until this long before the notification only unmetered networks are used
+    private static final long DEADLINE_BEFORE_NOTIFICATION_MS = 60 * 60 * 1000;
+    private static final long INITIAL_BACKOFF_MS = 60 * 1000;
+
+    /**
+     * Schedule the next overnight sync, unless one is already pending.
+     */
+    public static void scheduleDaily(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Calendar start = Calendar.getInstance();
+        start.set(Calendar.HOUR_OF_DAY, SYNC_HOUR);
+        start.set(Calendar.MINUTE, 0);
+        start.set(Calendar.SECOND, 0);
+        if (start.getTimeInMillis() <= now) {
+            start.add(Calendar.DAY_OF_YEAR, 1);
+        }
+        Calendar deadline = (Calendar) start.clone();
+        deadline.set(Calendar.HOUR_OF_DAY, NotificationHelper.getNotificationHour(context));
+        deadline.set(Calendar.MINUTE, NotificationHelper.getNotificationMinute(context));
+        long deadlineMillis = Math.max(deadline.getTimeInMillis() - DEADLINE_BEFORE_NOTIFICATION_MS,
+                start.getTimeInMillis());
+
+        JobInfo job = baseJob(context)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .setMinimumLatency(start.getTimeInMillis() - now)
+                // Past the deadline the constraints are dropped - a metered network is better than stale content
+                .setOverrideDeadline(deadlineMillis - now)
+                .build();
+        scheduler.schedule(job);
+        Log.d(TAG, "Daily sync scheduled for " + start.getTime());
+    }
+
+    /**
+     * Sync as soon as any network is available, e.g. when the last sync is more than a day old.
+     * Replaces a pending daily job; the next one is scheduled once this run succeeded.
+     */
+    public static void scheduleCatchUp(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null) {
+            return;
+        }
+        JobInfo pending = scheduler.getPendingJob(JOB_ID);
+        if (pending != null && pending.getMinLatencyMillis() == 0) {
+            return; // Already catching up
+        }
+        scheduler.schedule(baseJob(context)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .build());
+        Log.d(TAG, "Catch-up sync scheduled");
+    }
+
+    private static JobInfo.Builder baseJob(Context context) {
+        return new JobInfo.Builder(JOB_ID, new ComponentName(context, SyncJobService.class))
+                .setPersisted(true)
+                .setBackoffCriteria(INITIAL_BACKOFF_MS, JobInfo.BACKOFF_POLICY_EXPONENTIAL);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        Log.d(TAG, "Background sync started");
+        FirebaseApp.initializeApp(this);
+        SyncCoordinator.getInstance(this).requestSync(result -> finish(params, result.isSuccess()));
+        return true;
+    }
+
+    private void finish(JobParameters params, boolean success) {
+        if (!success) {
+            // Retried with backoff - the daily schedule continues after a successful run
+            jobFinished(params, true);
+            return;
+        }
+        // Finish first - scheduling the same id would otherwise stop this job
+        jobFinished(params, false);
+        scheduleDaily(this);
+        Log.d(TAG, "Background sync finished");
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Constraints lost or timed out - try again later
+        Log.w(TAG, "Background sync stopped by the system");
+        return true;
+    }
+}
@@ -0,0 +1,350 @@
+package com.martin.love_application;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Timing and volume of the last sync runs, kept in a fixed-size ring buffer and persisted to a file
+ * so they survive restarts. Recording only touches memory; the file is appended on a background thread.
+ */
+public class SyncMetrics {
+
+    private static final String TAG = "SyncMetrics";
+    private static final String FILE_NAME = "sync_metrics.tsv";
+
+    // Samples kept - the file is compacted once it holds twice as many lines
+    static final int CAPACITY = 256;
+
+    private static SyncMetrics instance;
+
+    /**
+     * One sync run of one source. Filled in while the sync runs, then handed to {@link #record}.
+     * Phases: network until the first response, write for all database calls, parse for the rest.
+     * For streamed responses the body download overlaps parsing and is counted as parse.
+     */
+    static final class Sample {
+        final String source;
+        final long startedAt;
+        private final long startNanos;
+        long networkMs;
+        long parseMs;
+        long writeMs;
+        long totalMs;
+        long bytes = -1; // -1 when the transport does not expose it (Firebase)
+        int inserted;
+        int updated;
+        int unchanged;
+        int deleted;
+        String error;
+        private long writeNanos;
+
+        Sample(String source) {
+            this.source = source;
+            this.startedAt = System.currentTimeMillis();
+            this.startNanos = System.nanoTime();
+        }
+
+        private Sample(String source, long startedAt) {
+            this.source = source;
+            this.startedAt = startedAt;
+            this.startNanos = 0;
+        }
+
+        void networkDone() {
+            networkMs = (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        // writeStartNanos is System.nanoTime() taken right before the database call
+        void addWrite(UpsertResult result, long writeStartNanos) {
+            writeNanos += System.nanoTime() - writeStartNanos;
+            inserted += result.inserted;
+            updated += result.updated;
+            unchanged += result.unchanged;
+            deleted += result.deleted;
+        }
+
+        void addWrite(int insertedRows, int deletedRows, long writeStartNanos) {
+            writeNanos += System.nanoTime() - writeStartNanos;
+            inserted += insertedRows;
+            deleted += deletedRows;
+        }
+
+        Sample finish(String error) {
+            this.error = error;
+            totalMs = (System.nanoTime() - startNanos) / 1_000_000;
+            writeMs = writeNanos / 1_000_000;
+            parseMs = Math.max(0, totalMs - networkMs - writeMs);
+            return this;
+        }
+
+        String toLine() {
+            return startedAt + "\t" + source + "\t" + totalMs + "\t" + networkMs + "\t" + parseMs + "\t" + writeMs
+                    + "\t" + bytes + "\t" + inserted + "\t" + updated + "\t" + unchanged + "\t" + deleted
+                    + "\t" + (error != null ? error.replaceAll("[\\t\\r\\n]", " ") : "");
+        }
+
+        static Sample fromLine(String line) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 12) {
+                return null;
+            }
+            try {
+                Sample sample = new Sample(fields[1], Long.parseLong(fields[0]));
+                sample.totalMs = Long.parseLong(fields[2]);
+                sample.networkMs = Long.parseLong(fields[3]);
+                sample.parseMs = Long.parseLong(fields[4]);
+                sample.writeMs = Long.parseLong(fields[5]);
+                sample.bytes = Long.parseLong(fields[6]);
+                sample.inserted = Integer.parseInt(fields[7]);
+                sample.updated = Integer.parseInt(fields[8]);
+                sample.unchanged = Integer.parseInt(fields[9]);
+                sample.deleted = Integer.parseInt(fields[10]);
+                sample.error = fields[11].isEmpty() ? null : fields[11];
+                return sample;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private final File file;
+    private final ArrayDeque<Sample> samples = new ArrayDeque<>(CAPACITY);
+    private final ExecutorService fileExecutor = Executors.newSingleThreadExecutor();
+    private int linesInFile; // Only touched on the file thread
+
+    public static synchronized SyncMetrics getInstance(Context context) {
+        if (instance == null) {
+            instance = new SyncMetrics(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SyncMetrics(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        fileExecutor.execute(this::load);
+    }
+
+    static Sample start(String source) {
+        return new Sample(source);
+    }
+
+    /**
+     * Keep a finished sample. Cheap enough for any thread.
+     */
+    void record(Sample sample) {
+        synchronized (samples) {
+            if (samples.size() == CAPACITY) {
+                samples.removeFirst();
+            }
+            samples.addLast(sample);
+        }
+        Log.d(TAG, sample.source + ": " + sample.totalMs + " ms (network " + sample.networkMs
+                + ", parse " + sample.parseMs + ", write " + sample.writeMs + ")"
+                + (sample.error != null ? " - " + sample.error : ""));
+        fileExecutor.execute(() -> append(sample));
+    }
+
+    /**
+     * Recorded samples, oldest first.
+     */
+    List<Sample> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * Per-source percentiles followed by the most recent runs, for the diagnostics screen.
+     */
+    public String buildReport() {
+        List<Sample> all = getSamples();
+        if (all.isEmpty()) {
+            return "Noch keine Sync-Messungen.";
+        }
+        Map<String, List<Sample>> bySource = new LinkedHashMap<>();
+        for (Sample sample : all) {
+            bySource.computeIfAbsent(sample.source, key -> new ArrayList<>()).add(sample);
+        }
+
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, List<Sample>> entry : bySource.entrySet()) {
+            List<Sample> list = entry.getValue();
+            int errors = 0;
+            long inserted = 0;
+            long updated = 0;
+            long unchanged = 0;
+            long deleted = 0;
+            for (Sample sample : list) {
+                if (sample.error != null) errors++;
+                inserted += sample.inserted;
+                updated += sample.updated;
+                unchanged += sample.unchanged;
+                deleted += sample.deleted;
+            }
+            report.append(entry.getKey()).append(" - ").append(list.size()).append(" runs, ")
+                    .append(errors).append(" errors\n");
+            report.append(phaseLine("total  ", list, 0));
+            report.append(phaseLine("network", list, 1));
+            report.append(phaseLine("parse  ", list, 2));
+            report.append(phaseLine("write  ", list, 3));
+            long[] bytes = values(list, 4);
+            if (bytes.length > 0) {
+                report.append("  bytes   p50 ").append(percentile(bytes, 50))
+                        .append("  max ").append(bytes[bytes.length - 1]).append('\n');
+            }
+            report.append("  rows    +").append(inserted).append(" ~").append(updated)
+                    .append(" =").append(unchanged).append(" -").append(deleted).append("\n\n");
+        }
+
+        report.append("Letzte Läufe\n");
+        SimpleDateFormat format = new SimpleDateFormat("dd.MM. HH:mm:ss", Locale.GERMANY);
+        for (int i = all.size() - 1; i >= Math.max(0, all.size() - 20); i--) {
+            Sample sample = all.get(i);
+            report.append(format.format(new Date(sample.startedAt))).append("  ").append(sample.source)
+                    .append("  ").append(sample.totalMs).append(" ms")
+                    .append(sample.error != null ? "  ✗ " + sample.error : "").append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * All samples as tab-separated values with a header line, for export.
+     */
+    public String exportTsv() {
+        StringBuilder export = new StringBuilder(
+                "started_at\tsource\ttotal_ms\tnetwork_ms\tparse_ms\twrite_ms\tbytes\tinserted\tupdated\tunchanged\tdeleted\terror\n");
+        for (Sample sample : getSamples()) {
+            export.append(sample.toLine()).append('\n');
+        }
+        return export.toString();
+    }
+
+    public void clear() {
+        synchronized (samples) {
+            samples.clear();
+        }
+        fileExecutor.execute(() -> {
+            file.delete();
+            linesInFile = 0;
+        });
+    }
+
+    private static String phaseLine(String label, List<Sample> list, int field) {
+        long[] sorted = values(list, field);
+        if (sorted.length == 0) {
+            return "";
+        }
+        return "  " + label + " p50 " + percentile(sorted, 50) + "  p90 " + percentile(sorted, 90)
+                + "  p99 " + percentile(sorted, 99) + "  max " + sorted[sorted.length - 1] + " ms\n";
+    }
+
+    // Sorted values of one field; unknown byte counts are left out
+    private static long[] values(List<Sample> list, int field) {
+        long[] values = new long[list.size()];
+        int count = 0;
+        for (Sample sample : list) {
+            long value;
+            switch (field) {
+                case 0: value = sample.totalMs; break;
+                case 1: value = sample.networkMs; break;
+                case 2: value = sample.parseMs; break;
+                case 3: value = sample.writeMs; break;
+                default: value = sample.bytes; break;
+            }
+            if (value >= 0) {
+                values[count++] = value;
+            }
+        }
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // Nearest-rank percentile of a sorted array
+    static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    // File thread only - older samples from the file go in front of anything recorded meanwhile
+    private void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        List<Sample> loaded = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                linesInFile++;
+                Sample sample = Sample.fromLine(line);
+                if (sample != null) {
+                    loaded.add(sample);
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read sync metrics: " + e.getMessage());
+            return;
+        }
+        synchronized (samples) {
+            for (int i = loaded.size() - 1; i >= 0 && samples.size() < CAPACITY; i--) {
+                samples.addFirst(loaded.get(i));
+            }
+        }
+    }
+
+    // File thread only
+    private void append(Sample sample) {
+        if (linesInFile >= 2 * CAPACITY) {
+            compact();
+            return; // The rewrite already contains the sample
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.write(sample.toLine());
+            writer.write('\n');
+            linesInFile++;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not persist sync metrics: " + e.getMessage());
+        }
+    }
+
+    // Rewrite the file with the buffer contents, through a temp file so a crash keeps the old one
+    private void compact() {
+        List<Sample> current = getSamples();
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+            for (Sample sample : current) {
+                writer.write(sample.toLine());
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not compact sync metrics: " + e.getMessage());
+            tmpFile.delete();
+            return;
+        }
+        if (tmpFile.renameTo(file)) {
+            linesInFile = current.size();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.martin.love_application;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Combined outcome of {@link NetworkDataManager#fetchAndUpdateAll}, with one entry per endpoint.
+ */
+public final class SyncResult {
+
+    public enum Status {
+        UPDATED,      // Downloaded and applied
+        NOT_MODIFIED, // Server answered 304, nothing parsed
+        REPLAYED,     // Offline - the cached payload was applied
+        FAILED
+    }
+
+    public static final class Endpoint {
+        public final String name;
+        public final Status status;
+        public final int changedRows;
+        public final long durationMs;
+        // User-facing error text, only set for FAILED
+        public final String error;
+
+        Endpoint(String name, Status status, int changedRows, long durationMs, String error) {
+            this.name = name;
+            this.status = status;
+            this.changedRows = changedRows;
+            this.durationMs = durationMs;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + status + " (" + changedRows + " rows, " + durationMs + " ms)";
+        }
+    }
+
+    public final List<Endpoint> endpoints;
+    public final long durationMs;
+
+    SyncResult(Endpoint[] endpoints, long durationMs) {
+        this.endpoints = Collections.unmodifiableList(Arrays.asList(endpoints));
+        this.durationMs = durationMs;
+    }
+
+    /**
+     * New or changed rows over all endpoints.
+     */
+    public int getChangedRows() {
+        int changed = 0;
+        for (Endpoint endpoint : endpoints) {
+            changed += endpoint.changedRows;
+        }
+        return changed;
+    }
+
+    public boolean allFailed() {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.status != Status.FAILED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * First error message, or null if every endpoint succeeded.
+     */
+    public String getFirstError() {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.error != null) {
+                return endpoint.error;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return endpoints + " in " + durationMs + " ms";
+    }
+}
@@ -0,0 +1,111 @@
+package com.martin.love_application;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-table change counters and observers for {@link DatabaseHelper}.
+ * Every committed write bumps the version of the tables it touched, so readers can tell
+ * whether their data is still current without querying the database.
+ */
+class TableChangeTracker {
+
+    interface Observer {
+        // Called on the writing thread right after the change was committed
+        void onTableChanged(String table);
+    }
+
+    interface ChangeSetObserver {
+        // Called on the writing thread with the rows the committed change touched
+        void onChangeSet(ChangeSet changes);
+    }
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<String, List<Observer>> observers = new ConcurrentHashMap<>();
+    private final Map<String, List<ChangeSetObserver>> changeSetObservers = new ConcurrentHashMap<>();
+
+    /**
+     * Current version of a table. Compare against an earlier value to see if it changed since then.
+     */
+    long getVersion(String table) {
+        AtomicLong version = versions.get(table);
+        return version != null ? version.get() : 0;
+    }
+
+    void addObserver(String table, Observer observer) {
+        observers.computeIfAbsent(table, key -> new CopyOnWriteArrayList<>()).add(observer);
+    }
+
+    void removeObserver(String table, Observer observer) {
+        List<Observer> tableObservers = observers.get(table);
+        if (tableObservers != null) {
+            tableObservers.remove(observer);
+        }
+    }
+
+    void addChangeSetObserver(String table, ChangeSetObserver observer) {
+        changeSetObservers.computeIfAbsent(table, key -> new CopyOnWriteArrayList<>()).add(observer);
+    }
+
+    void removeChangeSetObserver(String table, ChangeSetObserver observer) {
+        List<ChangeSetObserver> tableObservers = changeSetObservers.get(table);
+        if (tableObservers != null) {
+            tableObservers.remove(observer);
+        }
+    }
+
+    /**
+     * Record a committed change to the given tables and notify their observers.
+     * Change-set observers get a reset, as the touched rows are not known.
+     */
+    void notifyChanged(String... tables) {
+        for (String table : tables) {
+            versions.computeIfAbsent(table, key -> new AtomicLong()).incrementAndGet();
+        }
+        for (String table : tables) {
+            notifyObservers(table);
+            notifyChangeSetObservers(table, null);
+        }
+    }
+
+    /**
+     * Record a committed change with known rows, plus tables it touched along the way (e.g. child rows).
+     */
+    void notifyChanged(ChangeSet changes, String... relatedTables) {
+        versions.computeIfAbsent(changes.table, key -> new AtomicLong()).incrementAndGet();
+        for (String table : relatedTables) {
+            versions.computeIfAbsent(table, key -> new AtomicLong()).incrementAndGet();
+        }
+        notifyObservers(changes.table);
+        notifyChangeSetObservers(changes.table, changes);
+        for (String table : relatedTables) {
+            notifyObservers(table);
+            notifyChangeSetObservers(table, null);
+        }
+    }
+
+    private void notifyObservers(String table) {
+        List<Observer> tableObservers = observers.get(table);
+        if (tableObservers == null) {
+            return;
+        }
+        for (Observer observer : tableObservers) {
+            observer.onTableChanged(table);
+        }
+    }
+
+    // A null change set becomes a reset - only built when someone listens
+    private void notifyChangeSetObservers(String table, ChangeSet changes) {
+        List<ChangeSetObserver> tableObservers = changeSetObservers.get(table);
+        if (tableObservers == null || tableObservers.isEmpty()) {
+            return;
+        }
+        ChangeSet delivered = changes != null ? changes : ChangeSet.reset(table);
+        for (ChangeSetObserver observer : tableObservers) {
+            observer.onChangeSet(delivered);
+        }
+    }
+}
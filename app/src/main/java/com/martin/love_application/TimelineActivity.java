@@ -2,12 +2,17 @@ package com.martin.love_application;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -16,6 +21,7 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -29,11 +35,26 @@ public class TimelineActivity extends AppCompatActivity {
     private TextView daysTogether;
 
     private DatabaseHelper dbHelper;
-    private List<TimelineEvent> timelineEvents;
+    private LoveRepository repository;
     
     // Your relationship start date - should match MainActivity
     private static final String RELATIONSHIP_START = "2024-11-01";
 
+    // Search settings - wait for a short typing pause before querying
+    private static final int SEARCH_RESULT_LIMIT = 50;
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private int searchGeneration; // Results from an outdated query are dropped
+    private boolean searching;
+
+    // Timeline table version of the list on screen - -1 until the first load
+    private long shownTimelineVersion = -1;
+
+    // Syncs committed while this screen is visible only rebind the rows they touched
+    private final TableChangeTracker.ChangeSetObserver timelineObserver =
+            changes -> runOnUiThread(() -> onTimelineChanged(changes));
+
 
 
     @Override
@@ -41,9 +62,8 @@ public class TimelineActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_timeline);
 
-        initializeViews();
         setupDatabase();
-        loadTimelineEvents();
+        initializeViews();
         setupRecyclerView();
     }
 
@@ -57,22 +77,16 @@ public class TimelineActivity extends AppCompatActivity {
         // Setup toolbar
         setSupportActionBar(toolbar);
         toolbar.setNavigationOnClickListener(v -> finish());
-        
-        // Update header stats
-        updateHeaderStats();
     }
 
     private void setupDatabase() {
         dbHelper = DatabaseHelper.getInstance(this);
-    }
-
-    private void loadTimelineEvents() {
-        timelineEvents = dbHelper.getAllTimelineEvents();
-        Log.d("TimelineActivity", "Loaded " + (timelineEvents != null ? timelineEvents.size() : 0) + " timeline events from database");
+        repository = LoveRepository.getInstance(this);
     }
 
     private void setupRecyclerView() {
-        timelineAdapter = new TimelineAdapter(this, timelineEvents);
+        // Events are paged in from the database as the user scrolls
+        timelineAdapter = new TimelineAdapter(this, repository, this);
         timelineRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         timelineRecyclerView.setAdapter(timelineAdapter);
 
@@ -82,11 +96,90 @@ public class TimelineActivity extends AppCompatActivity {
     }
 
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_timeline, menu);
+
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_memories));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String query) {
+                scheduleSearch(query);
+                return true;
+            }
+        });
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                // Back to the normal paged timeline
+                searchGeneration++;
+                searchHandler.removeCallbacksAndMessages(null);
+                searching = false;
+                timelineAdapter.refresh();
+                return true;
+            }
+        });
+        return true;
+    }
+
+    private void scheduleSearch(String query) {
+        searchHandler.removeCallbacksAndMessages(null);
+        if (query == null || query.trim().isEmpty()) {
+            if (searching) {
+                searchGeneration++;
+                searching = false;
+                timelineAdapter.refresh();
+            }
+            return;
+        }
+        searchHandler.postDelayed(() -> runSearch(query), SEARCH_DEBOUNCE_MS);
+    }
+
+    private void runSearch(String query) {
+        searching = true;
+        final int generation = ++searchGeneration;
+        final String messageTitle = getString(R.string.search_message_title);
+
+        repository.submit(this, () -> {
+            // Timeline memories first, then matching love notes shown as timeline cards
+            List<TimelineEvent> results = new ArrayList<>(dbHelper.searchTimelineEvents(query, SEARCH_RESULT_LIMIT));
+            for (Message message : dbHelper.searchMessages(query, SEARCH_RESULT_LIMIT)) {
+                TimelineEvent result = new TimelineEvent(message.getDate(), messageTitle,
+                        message.getText(), "", "love_note");
+                results.add(result);
+            }
+            Log.d("TimelineActivity", "Search '" + query + "' found " + results.size() + " results");
+            return results;
+        }, results -> {
+            if (generation == searchGeneration) {
+                timelineAdapter.showEvents(results);
+            }
+        }, error -> {
+            if (generation == searchGeneration) {
+                // Don't leave the previous results looking like matches for this query
+                timelineAdapter.showEvents(new ArrayList<>());
+                Toast.makeText(this, "Suche fehlgeschlagen", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     private void updateHeaderStats() {
         // Update total memories count
-        if (timelineEvents != null && totalMemories != null) {
-            int count = timelineEvents.size();
-            totalMemories.setText(count + " Erinnerungen");
+        if (totalMemories != null) {
+            repository.getTimelineEventsCount(this, count -> totalMemories.setText(count + " Erinnerungen"));
         }
         
         // Calculate and update days together
@@ -113,16 +206,44 @@ public class TimelineActivity extends AppCompatActivity {
     }
     
 
+    private void onTimelineChanged(ChangeSet changes) {
+        shownTimelineVersion = repository.getTableVersion(DatabaseHelper.TABLE_TIMELINE);
+        if (!searching) {
+            timelineAdapter.applyChanges(changes);
+        }
+        if (changes.reset || !changes.inserted.isEmpty() || !changes.deleted.isEmpty()) {
+            updateHeaderStats();
+        }
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
-        // Refresh timeline in case new events were added
-        loadTimelineEvents();
-        if (timelineAdapter != null) {
-            timelineAdapter.updateEvents(timelineEvents);
+        repository.addChangeSetObserver(DatabaseHelper.TABLE_TIMELINE, timelineObserver);
+        // Only reload when the timeline changed while this screen was in the background
+        long version = repository.getTableVersion(DatabaseHelper.TABLE_TIMELINE);
+        if (version == shownTimelineVersion) {
+            return;
+        }
+        shownTimelineVersion = version;
+        if (timelineAdapter != null && !searching) {
+            timelineAdapter.refresh();
         }
         // Update header stats
         updateHeaderStats();
     }
-    
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        repository.removeChangeSetObserver(DatabaseHelper.TABLE_TIMELINE, timelineObserver);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Pending database results are dropped by the repository once this Activity is destroyed
+        searchHandler.removeCallbacksAndMessages(null);
+    }
+
 }
\ No newline at end of file
@@ -9,23 +9,56 @@ import android.widget.ImageView;
 import android.widget.Switch;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.card.MaterialCardView;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 public class TimelineAdapter extends RecyclerView.Adapter<TimelineAdapter.TimelineViewHolder> {
 
+    // DateTimeFormatter is immutable, so one instance serves every bind
+    private static final DateTimeFormatter DISPLAY_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("d. MMMM yyyy", Locale.getDefault());
+
+    // Rows per database page and how close to the end binding triggers the next page
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 15;
+
+    // Same order as DatabaseHelper#getTimelineEventsAfter - EpochDays.NONE is the smallest day
+    private static final Comparator<TimelineEvent> PAGE_ORDER = (a, b) -> {
+        int byDay = Long.compare(a.getEpochDay(), b.getEpochDay());
+        return byDay != 0 ? byDay : Integer.compare(a.getId(), b.getId());
+    };
+
     private Context context;
-    private List<TimelineEvent> timelineEvents;
+    private LoveRepository repository;
+    private LifecycleOwner lifecycleOwner;
+    private List<TimelineEvent> timelineEvents = new ArrayList<>();
     private LayoutInflater inflater;
 
-    public TimelineAdapter(Context context, List<TimelineEvent> timelineEvents) {
+    // Paging state - only touched on the main thread
+    private LoveRepository.Task pageTask;
+    private boolean loading;
+    private boolean endReached;
+    private int generation; // Bumped on refresh so pages from an older load are dropped
+    // Changes that arrived while a page was loading - that page may have been read before they were committed
+    private final Map<Long, TimelineEvent> pendingEvents = new LinkedHashMap<>();
+    private final Set<Long> pendingDeletes = new HashSet<>();
+
+    public TimelineAdapter(Context context, LoveRepository repository, LifecycleOwner lifecycleOwner) {
         this.context = context;
-        this.timelineEvents = timelineEvents;
+        this.repository = repository;
+        this.lifecycleOwner = lifecycleOwner;
         this.inflater = LayoutInflater.from(context);
     }
 
@@ -40,15 +73,22 @@ public class TimelineAdapter extends RecyclerView.Adapter<TimelineAdapter.Timeli
     public void onBindViewHolder(@NonNull TimelineViewHolder holder, int position) {
         TimelineEvent event = timelineEvents.get(position);
 
+        // Load the next page in the background before the user reaches the end
+        if (position >= timelineEvents.size() - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
+
         // Set title and description
         holder.titleText.setText(event.getTitle());
         holder.descriptionText.setText(event.getDescription());
 
         // Format and set date
-        String formattedDate = formatDate(event.getDate());
+        String formattedDate = formatDate(event);
         holder.dateText.setText(formattedDate);
         int iconResource;
-        switch (event.getType()) {
+        // Rows stored before types were defaulted may have none
+        String type = event.getType() != null ? event.getType() : TimelineEvent.DEFAULT_TYPE;
+        switch (type) {
             case "milestone":
                 iconResource = R.drawable.ic_heart;
                 break;
@@ -61,6 +101,9 @@ public class TimelineAdapter extends RecyclerView.Adapter<TimelineAdapter.Timeli
             case "memory":
                 iconResource = R.drawable.ic_cloud;
                 break;
+            case "love_note":
+                iconResource = R.drawable.ic_heart;
+                break;
             default:
                 iconResource = R.drawable.ic_star;
                 break;
@@ -73,23 +116,188 @@ public class TimelineAdapter extends RecyclerView.Adapter<TimelineAdapter.Timeli
         return timelineEvents.size();
     }
 
-    private String formatDate(String dateString) {
-        try {
-            SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat outputFormat = new SimpleDateFormat("d. MMMM yyyy", Locale.getDefault());
-            Date date = inputFormat.parse(dateString);
-            return outputFormat.format(date);
-        } catch (ParseException e) {
-            return dateString; // Return original if parsing fails
+    private String formatDate(TimelineEvent event) {
+        if (event.getEpochDay() == EpochDays.NONE) {
+            return event.getDate(); // Return original if the date could not be parsed
         }
+        return DISPLAY_DATE_FORMAT.format(LocalDate.ofEpochDay(event.getEpochDay()));
+    }
+
+    /**
+     * Drop all loaded events and start again from the first page.
+     */
+    public void refresh() {
+        cancelPendingPage();
+        loading = false;
+        endReached = false;
+        timelineEvents = new ArrayList<>();
+        notifyDataSetChanged();
+        loadNextPage();
     }
 
-    public void updateEvents(List<TimelineEvent> newEvents) {
-        this.timelineEvents = newEvents;
-        android.util.Log.d("TimelineAdapter", "Updating events: " + (newEvents != null ? newEvents.size() : 0) + " events");
+    /**
+     * Show a fixed list (e.g. search results) instead of paging through the database.
+     * Call {@link #refresh()} to return to the paged timeline.
+     */
+    public void showEvents(List<TimelineEvent> events) {
+        cancelPendingPage();
+        loading = false;
+        endReached = true;
+        timelineEvents = new ArrayList<>(events);
         notifyDataSetChanged();
     }
 
+    /**
+     * Apply a committed timeline change set as item-level notifications, so only
+     * the affected rows rebind. Only valid for the paged timeline, not for {@link #showEvents}.
+     */
+    public void applyChanges(ChangeSet changes) {
+        if (changes.reset) {
+            refresh();
+            return;
+        }
+        for (int i = timelineEvents.size() - 1; i >= 0; i--) {
+            if (changes.deleted.contains((long) timelineEvents.get(i).getId())) {
+                timelineEvents.remove(i);
+                notifyItemRemoved(i);
+            }
+        }
+        if (loading) {
+            pendingDeletes.addAll(changes.deleted);
+        }
+
+        Set<Long> changedIds = new HashSet<>(changes.inserted);
+        changedIds.addAll(changes.updated);
+        if (changedIds.isEmpty()) {
+            return;
+        }
+        final int requestGeneration = generation;
+        repository.getTimelineEventsByIds(lifecycleOwner, changedIds, events -> {
+            if (requestGeneration != generation) {
+                return; // A refresh reloads these rows anyway
+            }
+            for (TimelineEvent event : events) {
+                placeEvent(event);
+                if (loading) {
+                    pendingEvents.put((long) event.getId(), event);
+                }
+            }
+        }, error -> {
+            // The loaded rows may be stale now - fall back to a full reload
+            if (requestGeneration == generation) {
+                refresh();
+            }
+        });
+    }
+
+    // Put a fresh copy of an event at its sorted position, replacing any loaded copy.
+    // Events past the loaded range are left to the page that covers them.
+    private void placeEvent(TimelineEvent event) {
+        int oldPosition = -1;
+        for (int i = 0; i < timelineEvents.size(); i++) {
+            if (timelineEvents.get(i).getId() == event.getId()) {
+                oldPosition = i;
+                break;
+            }
+        }
+        if (oldPosition >= 0) {
+            timelineEvents.remove(oldPosition);
+        }
+
+        int position = Collections.binarySearch(timelineEvents, event, PAGE_ORDER);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        boolean inRange = position < timelineEvents.size() || endReached;
+
+        if (oldPosition < 0) {
+            if (inRange) {
+                timelineEvents.add(position, event);
+                notifyItemInserted(position);
+            }
+        } else if (!inRange) {
+            notifyItemRemoved(oldPosition);
+        } else {
+            timelineEvents.add(position, event);
+            if (position != oldPosition) {
+                notifyItemMoved(oldPosition, position);
+            }
+            notifyItemChanged(position);
+        }
+    }
+
+    private void cancelPendingPage() {
+        generation++;
+        pendingEvents.clear();
+        pendingDeletes.clear();
+        if (pageTask != null) {
+            pageTask.cancel();
+            pageTask = null;
+        }
+    }
+
+    private void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        loading = true;
+
+        final int requestGeneration = generation;
+        final long afterEpochDay;
+        final int afterId;
+        if (timelineEvents.isEmpty()) {
+            afterEpochDay = EpochDays.NONE;
+            afterId = 0;
+        } else {
+            TimelineEvent last = timelineEvents.get(timelineEvents.size() - 1);
+            afterEpochDay = last.getEpochDay();
+            afterId = last.getId();
+        }
+
+        pageTask = repository.getTimelineEventsAfter(lifecycleOwner, afterEpochDay, afterId, PAGE_SIZE,
+                page -> onPageLoaded(requestGeneration, page),
+                error -> onPageFailed(requestGeneration));
+    }
+
+    // Lets the next bind near the end try the page again instead of leaving paging stuck
+    private void onPageFailed(int requestGeneration) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loading = false;
+        pageTask = null;
+        // The next page is queried after these changes were committed, so it picks them up itself
+        pendingEvents.clear();
+        pendingDeletes.clear();
+        Log.w("TimelineAdapter", "Loading a timeline page failed - retrying on the next scroll");
+    }
+
+    private void onPageLoaded(int requestGeneration, List<TimelineEvent> page) {
+        if (requestGeneration != generation) {
+            return; // A refresh happened while this page was loading
+        }
+        loading = false;
+        if (page.size() < PAGE_SIZE) {
+            endReached = true;
+        }
+        if (!pendingDeletes.isEmpty()) {
+            page = new ArrayList<>(page);
+            page.removeIf(event -> pendingDeletes.contains((long) event.getId()));
+        }
+        if (!page.isEmpty()) {
+            int start = timelineEvents.size();
+            timelineEvents.addAll(page);
+            notifyItemRangeInserted(start, page.size());
+        }
+        // Newer copies win over what this page read; the next page is queried after they were committed
+        for (TimelineEvent event : pendingEvents.values()) {
+            placeEvent(event);
+        }
+        pendingEvents.clear();
+        pendingDeletes.clear();
+        Log.d("TimelineAdapter", "Loaded page of " + page.size() + " events (" + timelineEvents.size() + " total)");
+    }
+
     public static class TimelineViewHolder extends RecyclerView.ViewHolder {
         MaterialCardView cardView;
         TextView titleText;
@@ -1,11 +1,21 @@
 package com.martin.love_application;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 public class TimelineEvent {
+
+    // Used for events whose source has no type
+    public static final String DEFAULT_TYPE = "memory";
+
     private int id;
     private String date;
+    private long epochDay = EpochDays.NONE; // Event date as days since 1970-01-01
     private String title;
     private String description;
-    private String photos; // Comma-separated photo paths
+    private List<String> photoList; // Ordered photo paths, null while none were set
+    private String[] photoArray;
     private String type;
 
     // Constructors
@@ -13,9 +23,10 @@ public class TimelineEvent {
 
     public TimelineEvent(String date, String title, String description, String photos, String type) {
         this.date = date;
+        this.epochDay = EpochDays.parse(date);
         this.title = title;
         this.description = description;
-        this.photos = photos;
+        setPhotos(photos);
         this.type = type;
     }
     
@@ -23,9 +34,10 @@ public class TimelineEvent {
     public TimelineEvent(String title, String date, String type) {
         this.title = title;
         this.date = date;
+        this.epochDay = EpochDays.parse(date);
         this.type = type;
         this.description = "";
-        this.photos = "";
+        this.photoList = Collections.emptyList();
     }
 
     // Getters and Setters
@@ -45,6 +57,14 @@ public class TimelineEvent {
         this.date = date;
     }
 
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(long epochDay) {
+        this.epochDay = epochDay;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -61,12 +81,22 @@ public class TimelineEvent {
         this.description = description;
     }
 
-    public String getPhotos() {
-        return photos;
+    /**
+     * Get the ordered photo paths. Events read through {@link DatabaseHelper} come with
+     * their photos already loaded, so this never touches the database.
+     */
+    public List<String> getPhotoList() {
+        return photoList != null ? photoList : Collections.<String>emptyList();
     }
 
+    public void setPhotoList(List<String> photoList) {
+        this.photoList = photoList != null ? Collections.unmodifiableList(photoList) : null;
+        this.photoArray = null;
+    }
+
+    // Set photos from the comma-separated form used by the JSON feeds
     public void setPhotos(String photos) {
-        this.photos = photos;
+        setPhotoList(parsePhotoList(photos));
     }
 
     public String getType() {
@@ -79,9 +109,26 @@ public class TimelineEvent {
 
     // Helper method to get photo paths as array
     public String[] getPhotoArray() {
+        if (photoArray == null) {
+            photoArray = getPhotoList().toArray(new String[0]);
+        }
+        return photoArray;
+    }
+
+    /**
+     * Split a comma-separated photo list, skipping blank entries.
+     */
+    public static List<String> parsePhotoList(String photos) {
+        List<String> paths = new ArrayList<>();
         if (photos == null || photos.isEmpty()) {
-            return new String[0];
+            return paths;
+        }
+        for (String path : photos.split(",")) {
+            String trimmed = path.trim();
+            if (!trimmed.isEmpty()) {
+                paths.add(trimmed);
+            }
         }
-        return photos.split(",");
+        return paths;
     }
 }
\ No newline at end of file
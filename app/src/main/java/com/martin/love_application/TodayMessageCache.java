@@ -0,0 +1,111 @@
+package com.martin.love_application;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import java.util.List;
+
+/**
+ * Process-wide cache for today's and tomorrow's message, keyed by epoch day.
+ * Owned by {@link DatabaseHelper}, which invalidates it whenever a write to the messages table commits.
+ */
+class TodayMessageCache implements ComponentCallbacks2 {
+
+    private static final String TAG = "TodayMessageCache";
+
+    interface Loader {
+        // Load all messages from fromEpochDay to toEpochDay (inclusive)
+        List<Message> load(long fromEpochDay, long toEpochDay);
+    }
+
+    private final Loader loader;
+
+    private long cachedDay = EpochDays.NONE;
+    private Message today;
+    private Message tomorrow;
+    private boolean tomorrowLoaded;
+    // Bumped on every invalidation so a load racing with a sync never stores stale rows
+    private long generation;
+
+    TodayMessageCache(Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Get today's message, hitting the database only on a cold cache or after invalidation.
+     * @return Today's message, or null if there is none
+     */
+    Message getTodaysMessage() {
+        long day = EpochDays.today();
+        long loadGeneration;
+        synchronized (this) {
+            if (day == cachedDay) {
+                return today;
+            }
+            // The date rolled over since the last load - yesterday's "tomorrow" is today's message
+            if (day == cachedDay + 1 && tomorrowLoaded) {
+                today = tomorrow;
+                tomorrow = null;
+                tomorrowLoaded = false;
+                cachedDay = day;
+                return today;
+            }
+            loadGeneration = generation;
+        }
+
+        Message loadedToday = null;
+        Message loadedTomorrow = null;
+        for (Message message : loader.load(day, day + 1)) {
+            if (message.getEpochDay() == day) {
+                if (loadedToday == null) {
+                    loadedToday = message;
+                }
+            } else if (loadedTomorrow == null) {
+                loadedTomorrow = message;
+            }
+        }
+
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                cachedDay = day;
+                today = loadedToday;
+                tomorrow = loadedTomorrow;
+                tomorrowLoaded = true;
+            }
+        }
+        return loadedToday;
+    }
+
+    /**
+     * Drop all cached entries, e.g. after a sync committed new messages.
+     */
+    synchronized void invalidate() {
+        generation++;
+        cachedDay = EpochDays.NONE;
+        today = null;
+        tomorrow = null;
+        tomorrowLoaded = false;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        // UI_HIDDEN fires whenever the user leaves the app - keep the two messages for a warm re-open
+        boolean runningLow = level == TRIM_MEMORY_RUNNING_LOW || level == TRIM_MEMORY_RUNNING_CRITICAL;
+        if (!runningLow && level < TRIM_MEMORY_BACKGROUND) {
+            return;
+        }
+        Log.d(TAG, "Trim memory (level " + level + ") - dropping cached messages");
+        invalidate();
+    }
+
+    @Override
+    public void onLowMemory() {
+        invalidate();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // Cached messages do not depend on the configuration
+    }
+}
@@ -0,0 +1,34 @@
+package com.martin.love_application;
+
+/**
+ * Outcome of applying a sync payload with {@link DatabaseHelper#upsertMessages},
+ * {@link DatabaseHelper#mergeMessageWindow}, {@link DatabaseHelper#upsertTimelineEvents}
+ * or one of the mirror variants.
+ */
+public final class UpsertResult {
+
+    public final int inserted;
+    public final int updated;
+    public final int unchanged;
+    // Only a windowed merge or a mirror deletes rows
+    public final int deleted;
+
+    public UpsertResult(int inserted, int updated, int unchanged, int deleted) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Whether the payload changed anything in the database.
+     */
+    public boolean hasChanges() {
+        return inserted > 0 || updated > 0 || deleted > 0;
+    }
+
+    @Override
+    public String toString() {
+        return inserted + " inserted, " + updated + " updated, " + unchanged + " unchanged, " + deleted + " deleted";
+    }
+}
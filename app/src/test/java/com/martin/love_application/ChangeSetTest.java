@@ -0,0 +1,43 @@
+package com.martin.love_application;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ChangeSetTest {
+
+    @Test
+    public void reset_isNeverEmpty() {
+        ChangeSet reset = ChangeSet.reset("timeline_events");
+        assertTrue(reset.reset);
+        assertFalse(reset.isEmpty());
+        assertTrue(reset.inserted.isEmpty());
+    }
+
+    @Test
+    public void isEmpty_withoutRows() {
+        Set<Long> none = Collections.emptySet();
+        assertTrue(new ChangeSet("daily_messages", none, none, none).isEmpty());
+        assertFalse(new ChangeSet("daily_messages", none, none, Collections.singleton(3L)).isEmpty());
+    }
+
+    @Test
+    public void keys_areCopied() {
+        Set<Long> inserted = new HashSet<>(Collections.singleton(1L));
+        ChangeSet changes = new ChangeSet("timeline_events", inserted,
+                Collections.<Long>emptySet(), Collections.<Long>emptySet());
+        inserted.add(2L);
+        assertEquals(Collections.singleton(1L), changes.inserted);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void keys_areUnmodifiable() {
+        ChangeSet changes = new ChangeSet("timeline_events", Collections.singleton(1L),
+                Collections.<Long>emptySet(), Collections.<Long>emptySet());
+        changes.updated.add(5L);
+    }
+}
@@ -0,0 +1,58 @@
+package com.martin.love_application;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Syncs skip rows whose stored hash matches, so any content difference must change the hash.
+ */
+public class ContentHashTest {
+
+    @Test
+    public void sameFields_sameHash() {
+        assertEquals(ContentHash.of("Hallo", "love_note", "2025-09-03"),
+                ContentHash.of("Hallo", "love_note", "2025-09-03"));
+    }
+
+    @Test
+    public void fieldBoundaries_matter() {
+        assertNotEquals(ContentHash.of("ab", "c"), ContentHash.of("a", "bc"));
+        assertNotEquals(ContentHash.of("abc"), ContentHash.of("abc", ""));
+    }
+
+    @Test
+    public void null_differsFromEmpty() {
+        assertNotEquals(ContentHash.of((String) null), ContentHash.of(""));
+        assertNotEquals(ContentHash.of("a", null), ContentHash.of("a", ""));
+    }
+
+    @Test
+    public void singleCharacterChange_changesHash() {
+        assertNotEquals(ContentHash.of("Ich liebe dich"), ContentHash.of("Ich liebe dicH"));
+    }
+
+    @Test
+    public void charactersBeyondLatin1_areHashedCompletely() {
+        // Same low byte, different high byte
+        assertNotEquals(ContentHash.of("Ł"), ContentHash.of("A"));
+        assertNotEquals(ContentHash.of("❤"), ContentHash.of("d"));
+    }
+
+    @Test
+    public void listOrder_matters() {
+        assertNotEquals(ContentHash.of(Arrays.asList("a.jpg", "b.jpg"), "desc", "memory"),
+                ContentHash.of(Arrays.asList("b.jpg", "a.jpg"), "desc", "memory"));
+    }
+
+    @Test
+    public void emptyList_hashesLikeFieldsOnly() {
+        assertEquals(ContentHash.of("desc", "memory"),
+                ContentHash.of(Collections.<String>emptyList(), "desc", "memory"));
+        assertNotEquals(ContentHash.of("desc", "memory"),
+                ContentHash.of(Collections.singletonList("a.jpg"), "desc", "memory"));
+    }
+}
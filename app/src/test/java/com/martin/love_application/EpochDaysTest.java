@@ -0,0 +1,57 @@
+package com.martin.love_application;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Date strings are the keys of synced messages and timeline events, so parsing must match
+ * {@link java.time.LocalDate} exactly and reject anything that is not a real date.
+ */
+public class EpochDaysTest {
+
+    @Test
+    public void parse_plainDate() {
+        assertEquals(0, EpochDays.parse("1970-01-01"));
+        assertEquals(20334, EpochDays.parse("2025-09-03"));
+        assertEquals(-1, EpochDays.parse("1969-12-31"));
+    }
+
+    @Test
+    public void parse_readsOnlyTheDateOfATimestamp() {
+        assertEquals(EpochDays.parse("2025-09-03"), EpochDays.parse("2025-09-03T10:30:00Z"));
+        assertEquals(EpochDays.parse("2025-09-03"), EpochDays.parse("2025-09-03 23:59"));
+    }
+
+    @Test
+    public void parse_leapDay() {
+        assertEquals(java.time.LocalDate.of(2024, 2, 29).toEpochDay(), EpochDays.parse("2024-02-29"));
+        assertEquals(EpochDays.NONE, EpochDays.parse("2025-02-29"));
+    }
+
+    @Test
+    public void parse_rejectsInvalidInput() {
+        assertEquals(EpochDays.NONE, EpochDays.parse(null));
+        assertEquals(EpochDays.NONE, EpochDays.parse(""));
+        assertEquals(EpochDays.NONE, EpochDays.parse("2025-9-3"));
+        assertEquals(EpochDays.NONE, EpochDays.parse("2025/09/03"));
+        assertEquals(EpochDays.NONE, EpochDays.parse("03.09.2025"));
+        assertEquals(EpochDays.NONE, EpochDays.parse("2025-0a-03"));
+        assertEquals(EpochDays.NONE, EpochDays.parse("2025-13-01"));
+        assertEquals(EpochDays.NONE, EpochDays.parse("2025-04-31"));
+        assertEquals(EpochDays.NONE, EpochDays.parse("2025-00-10"));
+    }
+
+    @Test
+    public void format_roundTrips() {
+        for (long day = -800; day <= 30000; day += 37) {
+            assertEquals(day, EpochDays.parse(EpochDays.format(day)));
+        }
+        assertEquals("2025-09-03", EpochDays.format(20334));
+    }
+
+    @Test
+    public void format_none() {
+        assertNull(EpochDays.format(EpochDays.NONE));
+    }
+}
@@ -0,0 +1,27 @@
+package com.martin.love_application;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SeedImporterTest {
+
+    @Test
+    public void parseMessageLine_splitsTypeAndText() {
+        assertArrayEquals(new String[]{"love_note", "Guten Morgen, Schatz"},
+                SeedImporter.parseMessageLine("love_note|Guten Morgen, Schatz"));
+    }
+
+    @Test
+    public void parseMessageLine_allowsEmptyType() {
+        assertArrayEquals(new String[]{"", "Text"}, SeedImporter.parseMessageLine("|Text"));
+    }
+
+    @Test
+    public void parseMessageLine_skipsInvalidLines() {
+        assertNull(SeedImporter.parseMessageLine(""));
+        assertNull(SeedImporter.parseMessageLine("no separator"));
+        assertNull(SeedImporter.parseMessageLine("love_note|"));
+        assertNull(SeedImporter.parseMessageLine("love_note|a|b"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.martin.love_application;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SyncMetricsTest {
+
+    @Test
+    public void percentile_nearestRank() {
+        long[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertEquals(5, SyncMetrics.percentile(sorted, 50));
+        assertEquals(9, SyncMetrics.percentile(sorted, 90));
+        assertEquals(10, SyncMetrics.percentile(sorted, 99));
+        assertEquals(10, SyncMetrics.percentile(sorted, 100));
+        assertEquals(1, SyncMetrics.percentile(sorted, 0));
+    }
+
+    @Test
+    public void percentile_singleValue() {
+        long[] sorted = {42};
+        assertEquals(42, SyncMetrics.percentile(sorted, 50));
+        assertEquals(42, SyncMetrics.percentile(sorted, 99));
+    }
+
+    @Test
+    public void percentile_roundsRankUp() {
+        long[] sorted = {10, 20, 30};
+        // 50 % of 3 is rank 1.5 -> 2
+        assertEquals(20, SyncMetrics.percentile(sorted, 50));
+        assertEquals(30, SyncMetrics.percentile(sorted, 90));
+    }
+
+    @Test
+    public void sample_roundTripsThroughLine() {
+        SyncMetrics.Sample sample = SyncMetrics.start("github_timeline");
+        sample.networkMs = 120;
+        sample.bytes = 4096;
+        sample.addWrite(new UpsertResult(3, 2, 40, 1), System.nanoTime());
+        sample.finish("IOException: timeout");
+
+        SyncMetrics.Sample read = SyncMetrics.Sample.fromLine(sample.toLine());
+        assertNotNull(read);
+        assertEquals(sample.startedAt, read.startedAt);
+        assertEquals("github_timeline", read.source);
+        assertEquals(sample.totalMs, read.totalMs);
+        assertEquals(sample.networkMs, read.networkMs);
+        assertEquals(sample.parseMs, read.parseMs);
+        assertEquals(sample.writeMs, read.writeMs);
+        assertEquals(4096, read.bytes);
+        assertEquals(3, read.inserted);
+        assertEquals(2, read.updated);
+        assertEquals(40, read.unchanged);
+        assertEquals(1, read.deleted);
+        assertEquals("IOException: timeout", read.error);
+    }
+
+    @Test
+    public void sample_withoutError_roundTripsAsNull() {
+        SyncMetrics.Sample read = SyncMetrics.Sample.fromLine(SyncMetrics.start("firebase_live").finish(null).toLine());
+        assertNotNull(read);
+        assertNull(read.error);
+        assertEquals(-1, read.bytes);
+    }
+
+    @Test
+    public void sample_errorCannotBreakTheLineFormat() {
+        SyncMetrics.Sample sample = SyncMetrics.start("firebase_messages").finish("a\tb\nc");
+        String line = sample.toLine();
+        assertFalse(line.contains("\n"));
+        SyncMetrics.Sample read = SyncMetrics.Sample.fromLine(line);
+        assertNotNull(read);
+        assertEquals("a b c", read.error);
+    }
+
+    @Test
+    public void fromLine_rejectsMalformedLines() {
+        assertNull(SyncMetrics.Sample.fromLine(""));
+        assertNull(SyncMetrics.Sample.fromLine("1\tsource\t2"));
+        assertNull(SyncMetrics.Sample.fromLine("x\tsource\t1\t2\t3\t4\t5\t6\t7\t8\t9\t"));
+    }
+}
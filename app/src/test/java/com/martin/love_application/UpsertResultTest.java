@@ -0,0 +1,16 @@
+package com.martin.love_application;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UpsertResultTest {
+
+    @Test
+    public void hasChanges_ignoresUnchangedRows() {
+        assertFalse(new UpsertResult(0, 0, 12, 0).hasChanges());
+        assertTrue(new UpsertResult(0, 0, 12, 1).hasChanges());
+        assertTrue(new UpsertResult(0, 1, 0, 0).hasChanges());
+        assertTrue(new UpsertResult(1, 0, 0, 0).hasChanges());
+    }
+}